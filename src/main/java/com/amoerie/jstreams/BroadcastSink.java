@@ -0,0 +1,119 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Consumer;
+
+class BroadcastSink<E> extends Stream<E> implements Runnable {
+
+    private static final Object NULL_ELEMENT = new Object();
+    private static final Object END = new Object();
+
+    private final Consumer<Stream<E>> consumer;
+    private final int bufferSize;
+    // guards the buffer and isDone, and is signalled whenever either of them changes
+    private final Object lock = new Object();
+    private final ArrayDeque<Object> buffer;
+    private volatile boolean isDone;
+    private volatile Throwable failure;
+    private boolean isIterated;
+
+    BroadcastSink(Consumer<Stream<E>> consumer, int bufferSize) {
+        this.consumer = consumer;
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayDeque<Object>(bufferSize);
+    }
+
+    @Override
+    public void run() {
+        try {
+            consumer.consume(this);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            synchronized (lock) {
+                isDone = true;
+                // nobody takes elements from this buffer anymore, and a broadcaster waiting for room should move on
+                buffer.clear();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    boolean isDone() {
+        return isDone;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    void push(E e) throws InterruptedException {
+        offer(e == null ? NULL_ELEMENT : e);
+    }
+
+    void end() throws InterruptedException {
+        offer(END);
+    }
+
+    private void offer(Object item) throws InterruptedException {
+        // a sink that stopped early no longer drains its buffer, so it is skipped instead of blocking the other sinks
+        synchronized (lock) {
+            while (buffer.size() >= bufferSize && !isDone)
+                lock.wait();
+            if (isDone)
+                return;
+            buffer.add(item);
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized Iterator<E> iterator() {
+        if (isIterated)
+            throw new IllegalStateException("Unable to iterate over a broadcast stream more than once!");
+        isIterated = true;
+        return new Iterator<E>() {
+            private Object nextItem;
+
+            private Object peek() {
+                if (nextItem == null) {
+                    try {
+                        synchronized (lock) {
+                            while (buffer.isEmpty())
+                                lock.wait();
+                            nextItem = buffer.poll();
+                            lock.notifyAll();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for the next broadcast element", e);
+                    }
+                }
+                return nextItem;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return peek() != END;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                final Object item = peek();
+                if (item == END)
+                    throw new NoSuchElementException();
+                nextItem = null;
+                return item == NULL_ELEMENT ? null : (E) item;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amoerie.jstreams.functions.Consumer;
+
+class Broadcaster<E> {
+
+    private final Stream<E> stream;
+    private final Consumer<Stream<E>>[] consumers;
+    private final int bufferSize;
+
+    Broadcaster(Stream<E> stream, Consumer<Stream<E>>[] consumers, int bufferSize) {
+        this.stream = stream;
+        this.consumers = consumers;
+        this.bufferSize = bufferSize;
+    }
+
+    void run() {
+        final List<BroadcastSink<E>> sinks = new ArrayList<BroadcastSink<E>>(consumers.length);
+        final List<Thread> threads = new ArrayList<Thread>(consumers.length);
+        for (Consumer<Stream<E>> consumer : consumers) {
+            final BroadcastSink<E> sink = new BroadcastSink<E>(consumer, bufferSize);
+            final Thread thread = new Thread(ExecutionContext.propagate(sink), "jstreams-broadcast-" + sinks.size());
+            thread.setDaemon(true);
+            sinks.add(sink);
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            final Checkpoint checkpoint = Checkpoint.open();
+            for (E e : stream) {
+                checkpoint.tick();
+                boolean isAnySinkListening = false;
+                for (BroadcastSink<E> sink : sinks) {
+                    sink.push(e);
+                    isAnySinkListening |= !sink.isDone();
+                }
+                // there is no point in reading further when a consumer failed or when every consumer stopped early,
+                // which also keeps an infinite stream from being read forever
+                rethrowFailure(sinks);
+                if (!isAnySinkListening)
+                    break;
+            }
+            for (BroadcastSink<E> sink : sinks)
+                sink.end();
+            for (Thread thread : threads)
+                thread.join();
+        } catch (InterruptedException e) {
+            interrupt(threads);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while broadcasting the stream", e);
+        } catch (RuntimeException e) {
+            interrupt(threads);
+            throw e;
+        } catch (Error e) {
+            interrupt(threads);
+            throw e;
+        }
+        rethrowFailure(sinks);
+    }
+
+    private static <E> void rethrowFailure(List<BroadcastSink<E>> sinks) {
+        for (BroadcastSink<E> sink : sinks) {
+            final Throwable failure = sink.getFailure();
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            if (failure != null)
+                throw new IllegalStateException("One of the broadcast consumers failed", failure);
+        }
+    }
+
+    private static void interrupt(List<Thread> threads) {
+        for (Thread thread : threads)
+            thread.interrupt();
+    }
+}
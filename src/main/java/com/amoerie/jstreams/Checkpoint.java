@@ -0,0 +1,74 @@
+package com.amoerie.jstreams;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// checks whether the execution context that a loop was started in has been cancelled,
+// once every so many iterations so the check costs next to nothing per element
+class Checkpoint {
+
+    private static final int INTERVAL = 1024;
+    // how long a blocking wait lasts before it checks for cancellation again
+    private static final long WAIT_MILLIS = 10;
+
+    // the checkpoint of loops that run outside of an execution context, which never stops anything
+    private static final Checkpoint NONE = new Checkpoint(null);
+
+    private final ExecutionContext context;
+    private int iterations;
+
+    private Checkpoint(ExecutionContext context) {
+        this.context = context;
+    }
+
+    static Checkpoint open() {
+        final ExecutionContext context = ExecutionContext.current();
+        if (context == null)
+            return NONE;
+        context.checkIfCancelled();
+        return new Checkpoint(context);
+    }
+
+    void tick() {
+        if (context != null && ++iterations == INTERVAL) {
+            iterations = 0;
+            context.checkIfCancelled();
+        }
+    }
+
+    void check() {
+        if (context != null)
+            context.checkIfCancelled();
+    }
+
+    boolean isCancelled() {
+        return context != null && context.isCancelled();
+    }
+
+    <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+        if (context == null)
+            return future.get();
+        while (true) {
+            context.checkIfCancelled();
+            try {
+                return future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // keep waiting
+            }
+        }
+    }
+
+    <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        if (context == null)
+            return queue.take();
+        while (true) {
+            context.checkIfCancelled();
+            final T element = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (element != null)
+                return element;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.amoerie.jstreams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a binary encoding of elements, used to store elements outside of the heap.
+ * See {@link Codecs} for codecs of common types.
+ *
+ * @param <E> the type of element this codec can encode and decode
+ */
+public interface Codec<E> {
+    /**
+     * Calculates the number of bytes needed to encode an element
+     *
+     * @param e the element, which is never null
+     * @return the exact number of bytes that {@link #encode(Object, ByteBuffer)} will write for this element
+     */
+    int sizeOf(E e);
+
+    /**
+     * Encodes an element into the buffer, starting at its current position
+     *
+     * @param e      the element, which is never null
+     * @param buffer the buffer to write to
+     */
+    void encode(E e, ByteBuffer buffer);
+
+    /**
+     * Decodes an element from the buffer, starting at its current position
+     *
+     * @param buffer the buffer to read from, limited to the bytes of exactly one element
+     * @return the decoded element
+     */
+    E decode(ByteBuffer buffer);
+}
@@ -0,0 +1,121 @@
+package com.amoerie.jstreams;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Contains {@link Codec}s for common types.
+ */
+public final class Codecs {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Codec<String> STRINGS = new Codec<String>() {
+        @Override
+        public int sizeOf(String s) {
+            return s.getBytes(UTF_8).length;
+        }
+
+        @Override
+        public void encode(String s, ByteBuffer buffer) {
+            buffer.put(s.getBytes(UTF_8));
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, UTF_8);
+        }
+    };
+
+    private static final Codec<Integer> INTEGERS = new Codec<Integer>() {
+        @Override
+        public int sizeOf(Integer i) {
+            return 4;
+        }
+
+        @Override
+        public void encode(Integer i, ByteBuffer buffer) {
+            buffer.putInt(i);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    private static final Codec<Long> LONGS = new Codec<Long>() {
+        @Override
+        public int sizeOf(Long l) {
+            return 8;
+        }
+
+        @Override
+        public void encode(Long l, ByteBuffer buffer) {
+            buffer.putLong(l);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    private static final Codec<Double> DOUBLES = new Codec<Double>() {
+        @Override
+        public int sizeOf(Double d) {
+            return 8;
+        }
+
+        @Override
+        public void encode(Double d, ByteBuffer buffer) {
+            buffer.putDouble(d);
+        }
+
+        @Override
+        public Double decode(ByteBuffer buffer) {
+            return buffer.getDouble();
+        }
+    };
+
+    private Codecs() {
+    }
+
+    /**
+     * Gets a codec that encodes strings as UTF-8
+     *
+     * @return a codec for strings
+     */
+    public static Codec<String> strings() {
+        return STRINGS;
+    }
+
+    /**
+     * Gets a codec that encodes integers in 4 bytes
+     *
+     * @return a codec for integers
+     */
+    public static Codec<Integer> integers() {
+        return INTEGERS;
+    }
+
+    /**
+     * Gets a codec that encodes longs in 8 bytes
+     *
+     * @return a codec for longs
+     */
+    public static Codec<Long> longs() {
+        return LONGS;
+    }
+
+    /**
+     * Gets a codec that encodes doubles in 8 bytes
+     *
+     * @return a codec for doubles
+     */
+    public static Codec<Double> doubles() {
+        return DOUBLES;
+    }
+}
@@ -0,0 +1,127 @@
+package com.amoerie.jstreams;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class CompactList<E> extends AbstractList<E> {
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    // small lists stay small: the first segment and position buffer are tiny, and each one after that is twice as large, up to the segment size
+    private static final int INITIAL_SEGMENT_SIZE = 1 << 10;
+    private static final int INITIAL_POSITIONS = 16;
+    // a position takes 8 bytes, and a direct buffer holds at most Integer.MAX_VALUE bytes
+    private static final int MAX_POSITIONS = Integer.MAX_VALUE / 8;
+
+    private static final int NULL_LENGTH = -1;
+
+    private final Codec<E> codec;
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    // for every element, the segment index in the upper and the offset within that segment in the lower 32 bits
+    private ByteBuffer positions;
+    private int size;
+
+    CompactList(Codec<E> codec, int segmentSize) {
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.positions = ByteBuffer.allocateDirect(INITIAL_POSITIONS * 8);
+    }
+
+    void append(E e) {
+        final int length = e == null ? 0 : codec.sizeOf(e);
+        if (length < 0)
+            throw new IllegalStateException("Unable to store " + e + " because the codec computed a negative size!");
+        if (length > Integer.MAX_VALUE - 4)
+            throw new IllegalStateException("Unable to store " + e + " because the codec computed a size that does not fit in a segment!");
+        ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.remaining() < 4 + length) {
+            final long grownSize = Math.min(segment == null ? INITIAL_SEGMENT_SIZE : (long) segment.capacity() * 2, segmentSize);
+            segment = ByteBuffer.allocateDirect((int) Math.max(grownSize, 4L + length));
+            segments.add(segment);
+        }
+        if (positions.remaining() < 8) {
+            final int numberOfPositions = positions.capacity() / 8;
+            if (numberOfPositions == MAX_POSITIONS)
+                throw new IllegalStateException("Unable to store more than " + MAX_POSITIONS + " elements in a compact list!");
+            final int grownNumberOfPositions = (int) Math.min((long) numberOfPositions * 2, MAX_POSITIONS);
+            final ByteBuffer grownPositions = ByteBuffer.allocateDirect(grownNumberOfPositions * 8);
+            positions.flip();
+            grownPositions.put(positions);
+            positions = grownPositions;
+        }
+        positions.putLong(((long) (segments.size() - 1) << 32) | segment.position());
+        if (e == null) {
+            segment.putInt(NULL_LENGTH);
+        } else {
+            segment.putInt(length);
+            final int start = segment.position();
+            codec.encode(e, segment);
+            if (segment.position() - start != length)
+                throw new IllegalStateException("Unable to store " + e + " because the codec wrote " + (segment.position() - start) + " bytes instead of " + length + "!");
+        }
+        size++;
+    }
+
+    private E decode(ByteBuffer segment, int offset) {
+        final int length = segment.getInt(offset);
+        if (length == NULL_LENGTH)
+            return null;
+        final ByteBuffer element = segment.duplicate();
+        element.limit(offset + 4 + length);
+        element.position(offset + 4);
+        return codec.decode(element);
+    }
+
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a list of size " + size);
+        final long position = positions.getLong(index * 8);
+        return decode(segments.get((int) (position >>> 32)), (int) position);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index;
+            private int segmentIndex;
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                ByteBuffer segment = segments.get(segmentIndex);
+                if (offset >= segment.position()) {
+                    segment = segments.get(++segmentIndex);
+                    offset = 0;
+                }
+                final int length = segment.getInt(offset);
+                final E element = decode(segment, offset);
+                offset += 4 + (length == NULL_LENGTH ? 0 : length);
+                index++;
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
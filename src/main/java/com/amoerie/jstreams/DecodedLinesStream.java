@@ -0,0 +1,75 @@
+package com.amoerie.jstreams;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// the lines of a file in a charset that is not ASCII compatible, such as UTF-16, which cannot be split on '\n' bytes and so are decoded as they are read
+class DecodedLinesStream extends Stream<CharSequence> {
+
+    private final File file;
+    private final Charset charset;
+
+    DecodedLinesStream(File file, Charset charset) {
+        this.file = file;
+        this.charset = charset;
+    }
+
+    @Override
+    public Iterator<CharSequence> iterator() {
+        if (!file.isFile())
+            throw new IllegalStateException("Unable to read lines from " + file + " because it is not a readable file!");
+        final BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read lines from " + file, e);
+        }
+        return new Iterator<CharSequence>() {
+
+            private boolean isDone;
+            private String nextLine;
+
+            private boolean tryPrepareNextLine() {
+                if (nextLine != null)
+                    return true;
+                if (isDone)
+                    return false;
+                try {
+                    nextLine = reader.readLine();
+                    if (nextLine == null) {
+                        isDone = true;
+                        reader.close();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read lines from " + file, e);
+                }
+                return nextLine != null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextLine();
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!tryPrepareNextLine())
+                    throw new NoSuchElementException();
+                final CharSequence line = nextLine;
+                nextLine = null;
+                return line;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.amoerie.jstreams;
+
+import com.amoerie.jstreams.functions.SizeEstimator;
+
+// a rough estimate for a 64-bit JVM: the slot in the collection that holds the element, plus the element's own object header and fields
+class DefaultSizeEstimator implements SizeEstimator {
+
+    private static final long REFERENCE_OVERHEAD = 32;
+    private static final long OBJECT_OVERHEAD = 16;
+
+    @Override
+    public long sizeOf(Object element) {
+        if (element == null)
+            return REFERENCE_OVERHEAD;
+        if (element instanceof CharSequence)
+            return REFERENCE_OVERHEAD + OBJECT_OVERHEAD + 24 + 2L * ((CharSequence) element).length();
+        if (element instanceof byte[])
+            return REFERENCE_OVERHEAD + OBJECT_OVERHEAD + ((byte[]) element).length;
+        if (element instanceof Object[])
+            return REFERENCE_OVERHEAD + OBJECT_OVERHEAD + 8L * ((Object[]) element).length;
+        return REFERENCE_OVERHEAD + OBJECT_OVERHEAD + 8;
+    }
+}
@@ -2,6 +2,7 @@ package com.amoerie.jstreams;
 
 import com.amoerie.jstreams.functions.Filter;
 
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -14,14 +15,57 @@ class DistinctStream<E> extends Stream<E> {
         this.stream = stream;
     }
 
+    @Override
+    int characteristics() {
+        return stream.characteristics() | DISTINCT;
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
     @Override
     public Iterator<E> iterator() {
+        if (stream.hasCharacteristics(DISTINCT))
+            return stream.iterator();
+        if (stream.hasCharacteristics(SORTED))
+            return withoutAdjacentDuplicates().iterator();
+        final MemoryAccount account = MemoryAccount.open("distinct");
         final Set<E> seenElements = new HashSet<E>();
+        return account.releaseWhenDone(stream.filter(new Filter<E>() {
+            @Override
+            public boolean apply(E e) {
+                if (!seenElements.add(e))
+                    return false;
+                account.add(e);
+                return true;
+            }
+        }).iterator());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<E> withoutAdjacentDuplicates() {
+        final Comparator<? super E> comparator = stream.comparator();
+        // in a sorted stream, equal elements are next to each other, so only the elements that sort the same as the first one of the run need to be remembered
+        final Set<E> run = new HashSet<E>();
         return stream.filter(new Filter<E>() {
+            private E first;
+
             @Override
             public boolean apply(E e) {
-                return seenElements.add(e);
+                if (!run.isEmpty()) {
+                    final int comparison = comparator != null
+                            ? comparator.compare(first, e)
+                            : ((Comparable<Object>) first).compareTo(e);
+                    if (comparison == 0)
+                        return run.add(e);
+                    run.clear();
+                }
+                first = e;
+                run.add(e);
+                return true;
             }
-        }).iterator();
+        });
     }
 }
@@ -0,0 +1,78 @@
+package com.amoerie.jstreams;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Filter;
+
+class DropWhileStream<E> extends Stream<E> {
+
+    private final Stream<E> stream;
+    private final Filter<E> filter;
+
+    DropWhileStream(Stream<E> stream, Filter<E> filter) {
+        this.stream = stream;
+        this.filter = filter;
+    }
+
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        return new Iterator<E>() {
+            private boolean isDropping = true;
+            private boolean isFirstElementPrepared = false;
+            private E firstElement;
+
+            // drops elements until the first one that fails the filter, which is kept aside as the first element
+            private void dropElements() {
+                if (!isDropping)
+                    return;
+                isDropping = false;
+                while (iterator.hasNext()) {
+                    final E element = iterator.next();
+                    if (!filter.apply(element)) {
+                        firstElement = element;
+                        isFirstElementPrepared = true;
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                dropElements();
+                return isFirstElementPrepared || iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                dropElements();
+                if (isFirstElementPrepared) {
+                    isFirstElementPrepared = false;
+                    final E element = firstElement;
+                    firstElement = null;
+                    return element;
+                }
+                if (!iterator.hasNext())
+                    throw new NoSuchElementException();
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amoerie.jstreams.functions.SizeEstimator;
+
+/**
+ * Represents the limits within which streams are iterated.
+ * Streams that are iterated inside {@link #run(Callable)} account for the elements that they hold on to, such as the elements of a sort,
+ * the groups of a groupBy or the elements already seen by distinct. When all of these together are estimated to take up more memory
+ * than the budget, the operation that tried to hold on to one more element throws a {@link MemoryBudgetExceededException}.
+ * The peak usage of each operation can be inspected afterwards.
+ * <p>
+ * An execution context can also be cancelled, either explicitly or because its timeout has passed. Streams that run in a cancelled context
+ * stop at the next checkpoint with a {@link CancellationException}, and let go of the elements and threads they were holding on to.
+ * <p>
+ * Streams that are not iterated to the end, for example because only their first element was needed, are stopped when the task that iterated them returns.
+ * <pre>
+ * {@code List<Event> sorted = ExecutionContext.create().withMemoryBudget(64 * 1024 * 1024).run(new Callable<List<Event>>() {
+ *          public List<Event> call() {
+ *              return events.sortBy(timestamp).toList();
+ *          }
+ *     });
+ * }
+ * </pre>
+ */
+public final class ExecutionContext {
+
+    private static final ThreadLocal<ExecutionContext> current = new ThreadLocal<ExecutionContext>();
+    // what has to be stopped when the running task returns, such as subscriptions of streams that it did not iterate to the end
+    private static final ThreadLocal<Set<Runnable>> exitHooks = new ThreadLocal<Set<Runnable>>();
+
+    private final long memoryBudget;
+    private final SizeEstimator sizeEstimator;
+    private final boolean hasDeadline;
+    private final long deadline;
+    private final AtomicLong memoryUsage = new AtomicLong();
+    // the peaks of the accounts that were released, and the accounts that are still open
+    private final Map<String, Long> peakMemoryUsage = new LinkedHashMap<String, Long>();
+    private final Set<MemoryAccount> openMemoryAccounts = new HashSet<MemoryAccount>();
+    private volatile boolean isCancelled;
+
+    private ExecutionContext(long memoryBudget, SizeEstimator sizeEstimator, boolean hasDeadline, long deadline) {
+        this.memoryBudget = memoryBudget;
+        this.sizeEstimator = sizeEstimator;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a new execution context without any limits
+     *
+     * @return a new execution context
+     */
+    public static ExecutionContext create() {
+        return new ExecutionContext(Long.MAX_VALUE, new DefaultSizeEstimator(), false, 0);
+    }
+
+    /**
+     * Creates a copy of this execution context with a memory budget
+     *
+     * @param bytes the estimated number of bytes that all operations together may hold on to
+     * @return a new execution context with the given memory budget
+     */
+    public ExecutionContext withMemoryBudget(final long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Unable to set the memory budget because it is negative!");
+        return new ExecutionContext(bytes, sizeEstimator, hasDeadline, deadline);
+    }
+
+    /**
+     * Creates a copy of this execution context that estimates the size of the elements with the given estimator.
+     * By default, a rough estimate is made based on the type of the element.
+     *
+     * @param estimator the function that estimates the memory taken up by an element
+     * @return a new execution context with the given size estimator
+     */
+    public ExecutionContext withSizeEstimator(final SizeEstimator estimator) {
+        if (estimator == null)
+            throw new IllegalArgumentException("Unable to set the size estimator because it is null!");
+        return new ExecutionContext(memoryBudget, estimator, hasDeadline, deadline);
+    }
+
+    /**
+     * Creates a copy of this execution context that is cancelled once the timeout has passed.
+     * The timeout starts counting now, not when the context is run.
+     *
+     * @param timeout the time after which the streams running in the new context are stopped
+     * @param unit    the unit of the timeout
+     * @return a new execution context with the given timeout
+     */
+    public ExecutionContext withTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Unable to set the timeout because it is negative!");
+        if (unit == null)
+            throw new IllegalArgumentException("Unable to set the timeout because the unit is null!");
+        return new ExecutionContext(memoryBudget, sizeEstimator, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Cancels this execution context. Streams that are running in it stop at their next checkpoint by throwing a {@link CancellationException}.
+     * Cancelling a context that has already been cancelled has no effect.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Checks whether this execution context has been cancelled, or whether its timeout has passed
+     *
+     * @return true if streams running in this context are stopped
+     */
+    public boolean isCancelled() {
+        return isCancelled || isPastDeadline();
+    }
+
+    private boolean isPastDeadline() {
+        return hasDeadline && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Runs the task within this execution context. Streams that are iterated by the task on the current thread are held to the limits of this context.
+     * When the task returns, the streams that it started iterating but did not finish are stopped: subscriptions to publishers are cancelled
+     * and background threads stop reading ahead. Iterating them after this method has returned is not supported.
+     *
+     * @param task the task to run
+     * @param <T>  the type of the result of the task
+     * @return the result of the task
+     */
+    public <T> T run(final Callable<T> task) {
+        if (task == null)
+            throw new IllegalArgumentException("Unable to run the task because the task is null!");
+        final ExecutionContext previous = current.get();
+        final Set<Runnable> previousExitHooks = exitHooks.get();
+        final Set<Runnable> hooks = new LinkedHashSet<Runnable>();
+        current.set(this);
+        exitHooks.set(hooks);
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to run the task", e);
+        } finally {
+            if (previous == null) {
+                current.remove();
+                exitHooks.remove();
+            } else {
+                current.set(previous);
+                exitHooks.set(previousExitHooks);
+            }
+            runExitHooks(hooks);
+        }
+    }
+
+    // the operations that were started last are stopped first, since they may still be reading from the earlier ones
+    private static void runExitHooks(Set<Runnable> hooks) {
+        final List<Runnable> remainingHooks = new ArrayList<Runnable>(hooks);
+        Collections.reverse(remainingHooks);
+        for (Runnable hook : remainingHooks)
+            hook.run();
+    }
+
+    /**
+     * Gets the memory budget of this execution context
+     *
+     * @return the estimated number of bytes that all operations together may hold on to
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Gets the highest estimated memory usage of each kind of operation that ran in this context, such as sort, groupBy or toList.
+     *
+     * @return the peak usage in bytes per operation, in the order in which the operations first ran
+     */
+    public Map<String, Long> getPeakMemoryUsage() {
+        synchronized (peakMemoryUsage) {
+            final Map<String, Long> peaks = new LinkedHashMap<String, Long>(peakMemoryUsage);
+            for (MemoryAccount account : openMemoryAccounts)
+                recordPeak(peaks, account);
+            return peaks;
+        }
+    }
+
+    private static void recordPeak(Map<String, Long> peaks, MemoryAccount account) {
+        final Long peak = peaks.get(account.getStage());
+        if (peak == null || peak < account.getPeak())
+            peaks.put(account.getStage(), account.getPeak());
+    }
+
+    static ExecutionContext current() {
+        return current.get();
+    }
+
+    // work that is handed to another thread runs in the context of the thread that handed it over
+    static <T> Callable<T> propagate(final Callable<T> task) {
+        final ExecutionContext context = current();
+        if (context == null)
+            return task;
+        return new Callable<T>() {
+            @Override
+            public T call() {
+                return context.run(task);
+            }
+        };
+    }
+
+    static Runnable propagate(final Runnable task) {
+        final ExecutionContext context = current();
+        if (context == null)
+            return task;
+        return new Runnable() {
+            @Override
+            public void run() {
+                context.run(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        task.run();
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    // the hook runs when the task that is running on this thread returns, unless it is removed before that because its operation finished by itself
+    static void addExitHook(Runnable hook) {
+        final Set<Runnable> hooks = exitHooks.get();
+        if (hooks != null)
+            hooks.add(hook);
+    }
+
+    static void removeExitHook(Runnable hook) {
+        final Set<Runnable> hooks = exitHooks.get();
+        if (hooks != null)
+            hooks.remove(hook);
+    }
+
+    void checkIfCancelled() {
+        if (isCancelled)
+            throw new CancellationException("Unable to continue the stream because its execution context was cancelled!");
+        if (isPastDeadline())
+            throw new CancellationException("Unable to continue the stream because the timeout of its execution context has passed!");
+    }
+
+    void register(MemoryAccount account) {
+        synchronized (peakMemoryUsage) {
+            // the stage is listed as soon as it starts, so the peaks are in the order in which the operations first ran
+            if (!peakMemoryUsage.containsKey(account.getStage()))
+                peakMemoryUsage.put(account.getStage(), 0L);
+            openMemoryAccounts.add(account);
+        }
+    }
+
+    void unregister(MemoryAccount account) {
+        synchronized (peakMemoryUsage) {
+            openMemoryAccounts.remove(account);
+            recordPeak(peakMemoryUsage, account);
+        }
+    }
+
+    long sizeOf(Object element) {
+        return sizeEstimator.sizeOf(element);
+    }
+
+    void allocate(String stage, long bytes) {
+        final long usage = memoryUsage.addAndGet(bytes);
+        if (usage > memoryBudget) {
+            memoryUsage.addAndGet(-bytes);
+            throw new MemoryBudgetExceededException(stage, memoryBudget, usage);
+        }
+    }
+
+    void release(long bytes) {
+        memoryUsage.addAndGet(-bytes);
+    }
+}
@@ -1,33 +1,47 @@
 package com.amoerie.jstreams;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 class FlatStream<E> extends Stream<E> {
 
-    private final Stream<Stream<E>> streams;
+    private final Iterable<Stream<E>> streams;
 
-    public FlatStream(final Stream<Stream<E>> streams) {
+    public FlatStream(final Iterable<Stream<E>> streams) {
         this.streams = streams;
     }
 
     @Override
     public Iterator<E> iterator() {
-        final Iterator<Stream<E>> streamsIterator = streams.iterator();
+        // nested flat streams are unfolded onto this stack instead of wrapping each other's iterators,
+        // so every element is served straight from the iterator of the stream it belongs to
+        final Deque<Iterator<Stream<E>>> streamsIterators = new ArrayDeque<Iterator<Stream<E>>>();
+        streamsIterators.push(streams.iterator());
+        final Checkpoint checkpoint = Checkpoint.open();
         return new Iterator<E>() {
 
             private Iterator<E> nonEmptyStreamIterator;
 
             private boolean tryEnsureNonEmptyIterator() {
-                // if initialized and it has a next value, we're good to go
-                if(nonEmptyStreamIterator != null && nonEmptyStreamIterator.hasNext())
-                    return true;
-                // the current nonEmptyStreamIterator is useless, try load the next one. if this was the last iterator, we're done
-                if(!streamsIterator.hasNext())
-                    return false;
-                nonEmptyStreamIterator = streamsIterator.next().iterator();
-                // recursive call because the flatMapper could produce empty iterators, in which case we need to move up to the next one again
-                return nonEmptyStreamIterator.hasNext() || tryEnsureNonEmptyIterator();
+                // loop rather than recurse, because the flatMapper could produce many empty iterators in a row
+                while (nonEmptyStreamIterator == null || !nonEmptyStreamIterator.hasNext()) {
+                    checkpoint.tick();
+                    final Iterator<Stream<E>> streamsIterator = streamsIterators.peek();
+                    if (streamsIterator == null)
+                        return false;
+                    if (!streamsIterator.hasNext()) {
+                        streamsIterators.pop();
+                        continue;
+                    }
+                    final Stream<E> stream = streamsIterator.next();
+                    if (stream instanceof FlatStream)
+                        streamsIterators.push(((FlatStream<E>) stream).streams.iterator());
+                    else
+                        nonEmptyStreamIterator = stream.iterator();
+                }
+                return true;
             }
 
             @Override
@@ -40,6 +54,7 @@ class FlatStream<E> extends Stream<E> {
                 if(!tryEnsureNonEmptyIterator()) {
                     throw new NoSuchElementException();
                 }
+                checkpoint.tick();
                 return nonEmptyStreamIterator.next();
             }
 
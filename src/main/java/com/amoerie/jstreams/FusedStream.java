@@ -0,0 +1,157 @@
+package com.amoerie.jstreams;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Filter;
+import com.amoerie.jstreams.functions.Mapper;
+
+class FusedStream<S, E> extends Stream<E> {
+
+    // adjacent filters and maps are fused into one stream, so every element passes through all of them in a single loop
+    // instead of through one wrapping iterator per stage
+    private final Stream<S> source;
+    // for every stage, either the filter or the mapper is set
+    private final Filter<Object>[] filters;
+    private final Mapper<Object, Object>[] mappers;
+    private final boolean hasFilters;
+
+    private FusedStream(Stream<S> source, Filter<Object>[] filters, Mapper<Object, Object>[] mappers, boolean hasFilters) {
+        this.source = source;
+        this.filters = filters;
+        this.mappers = mappers;
+        this.hasFilters = hasFilters;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> Stream<E> filter(Stream<E> stream, Filter<E> filter) {
+        return append(stream, (Filter<Object>) filter, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E, R> Stream<R> map(Stream<E> stream, Mapper<E, R> mapper) {
+        return append(stream, null, (Mapper<Object, Object>) mapper);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> Stream<R> append(Stream<?> stream, Filter<Object> filter, Mapper<Object, Object> mapper) {
+        if (stream instanceof FusedStream) {
+            final FusedStream<Object, ?> fused = (FusedStream<Object, ?>) stream;
+            final int stages = fused.filters.length;
+            final Filter<Object>[] filters = Arrays.copyOf(fused.filters, stages + 1);
+            final Mapper<Object, Object>[] mappers = Arrays.copyOf(fused.mappers, stages + 1);
+            filters[stages] = filter;
+            mappers[stages] = mapper;
+            return new FusedStream<Object, R>(fused.source, filters, mappers, fused.hasFilters || filter != null);
+        }
+        // generic arrays cannot be created directly, but these only ever hold the filter and mapper of the first stage
+        @SuppressWarnings("rawtypes")
+        final Filter<Object>[] filters = new Filter[]{filter};
+        @SuppressWarnings("rawtypes")
+        final Mapper<Object, Object>[] mappers = new Mapper[]{mapper};
+        return new FusedStream<Object, R>((Stream<Object>) stream, filters, mappers, filter != null);
+    }
+
+    private boolean hasMappers() {
+        for (Mapper<Object, Object> mapper : mappers)
+            if (mapper != null)
+                return true;
+        return false;
+    }
+
+    @Override
+    int characteristics() {
+        // filters keep whatever held for the source, but a mapper can produce anything
+        return hasMappers() ? 0 : source.characteristics();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Comparator<? super E> comparator() {
+        return hasMappers() ? null : (Comparator<? super E>) source.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<S> iterator = source.iterator();
+        if (!hasFilters) {
+            // without filters, every element of the source produces exactly one element, so no look-ahead is needed
+            return new StoppableIterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    Object value = iterator.next();
+                    for (Mapper<Object, Object> mapper : mappers)
+                        value = mapper.map(value);
+                    return (E) value;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                void stop() {
+                    StoppableIterator.stopEarly(iterator);
+                }
+            };
+        }
+        return new StoppableIterator<E>() {
+
+            private boolean isNextElementReady;
+            private Object nextElement;
+
+            private boolean tryPrepareNextElement() {
+                while (!isNextElementReady && iterator.hasNext()) {
+                    Object value = iterator.next();
+                    boolean isAccepted = true;
+                    for (int stage = 0; isAccepted && stage < filters.length; stage++) {
+                        if (filters[stage] != null)
+                            isAccepted = filters[stage].apply(value);
+                        else
+                            value = mappers[stage].map(value);
+                    }
+                    if (isAccepted) {
+                        nextElement = value;
+                        isNextElementReady = true;
+                    }
+                }
+                return isNextElementReady;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextElement();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!tryPrepareNextElement())
+                    throw new NoSuchElementException();
+                isNextElementReady = false;
+                final Object element = nextElement;
+                nextElement = null;
+                return (E) element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            void stop() {
+                StoppableIterator.stopEarly(iterator);
+            }
+        };
+    }
+}
@@ -19,21 +19,38 @@ class GroupedStream<K, E> extends Stream<Group<K, E>> {
         this.keyMapper = keyMapper;
     }
 
+    @Override
+    int characteristics() {
+        // every group is a new object, and groups only compare equal to themselves
+        return DISTINCT | NONNULL;
+    }
+
     @Override
     public Iterator<Group<K, E>> iterator() {
+        final MemoryAccount account = MemoryAccount.open("groupBy");
+        final Checkpoint checkpoint = Checkpoint.open();
         final Map<K, List<E>> groupMap = new LinkedHashMap<K, List<E>>();
-        for(E element: stream) {
-            K key = keyMapper.map(element);
-            List<E> elementsWithThisKey;
-            if(groupMap.containsKey(key)) {
-                elementsWithThisKey = groupMap.get(key);
-            } else {
-                elementsWithThisKey = new ArrayList<E>();
-                groupMap.put(key, elementsWithThisKey);
+        try {
+            for (E element : stream) {
+                checkpoint.tick();
+                K key = keyMapper.map(element);
+                List<E> elementsWithThisKey;
+                if(groupMap.containsKey(key)) {
+                    elementsWithThisKey = groupMap.get(key);
+                } else {
+                    account.add(key);
+                    elementsWithThisKey = new ArrayList<E>();
+                    groupMap.put(key, elementsWithThisKey);
+                }
+                account.add(element);
+                elementsWithThisKey.add(element);
             }
-            elementsWithThisKey.add(element);
+        } catch (RuntimeException e) {
+            // a grouping that is cancelled or fails no longer holds on to its elements
+            account.release();
+            throw e;
         }
-        final Iterator<Map.Entry<K, List<E>>> iterator = groupMap.entrySet().iterator();
+        final Iterator<Map.Entry<K, List<E>>> iterator = account.releaseWhenDone(groupMap.entrySet().iterator());
         return new Iterator<Group<K, E>>() {
             @Override
             public boolean hasNext() {
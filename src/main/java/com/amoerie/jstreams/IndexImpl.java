@@ -0,0 +1,57 @@
+package com.amoerie.jstreams;
+
+import java.util.List;
+
+import com.amoerie.jstreams.functions.Mapper;
+
+class IndexImpl<K, E> extends Index<K, E> {
+    // stands in for the null key, so the table can use null for empty slots
+    private static final Object NULL_KEY = new Object();
+
+    private final Object[] keys;
+    // the id of the key in each slot plus one, zero for empty slots
+    private final int[] ids;
+    private final int mask;
+    private final IndexedElements<E> elements;
+
+    IndexImpl(List<E> list, Mapper<E, K> keyMapper) {
+        final int capacity = IndexedElements.capacityFor(list.size());
+        keys = new Object[capacity];
+        ids = new int[capacity];
+        mask = capacity - 1;
+        final int[] keyIds = new int[list.size()];
+        int keyCount = 0;
+        for (int i = 0; i < keyIds.length; i++) {
+            final Object key = maskNull(keyMapper.map(list.get(i)));
+            final int slot = slotOf(key);
+            if (ids[slot] == 0) {
+                keys[slot] = key;
+                ids[slot] = ++keyCount;
+            }
+            keyIds[i] = ids[slot] - 1;
+        }
+        elements = new IndexedElements<E>(list, keyIds, keyCount);
+    }
+
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    // the slot that holds the key, or the empty slot where it would go
+    private int slotOf(Object key) {
+        int slot = IndexedElements.spread(key.hashCode()) & mask;
+        while (ids[slot] != 0 && !keys[slot].equals(key))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    @Override
+    public Stream<E> get(K key) {
+        return elements.get(ids[slotOf(maskNull(key))] - 1);
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return ids[slotOf(maskNull(key))] != 0;
+    }
+}
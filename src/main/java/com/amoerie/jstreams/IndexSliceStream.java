@@ -0,0 +1,41 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class IndexSliceStream<E> extends Stream<E> {
+    private final Object[] elements;
+    private final int from;
+    private final int to;
+
+    IndexSliceStream(Object[] elements, int from, int to) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index < to;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= to)
+                    throw new NoSuchElementException();
+                return (E) elements[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
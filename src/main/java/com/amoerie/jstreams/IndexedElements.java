@@ -0,0 +1,43 @@
+package com.amoerie.jstreams;
+
+import java.util.Arrays;
+import java.util.List;
+
+// the elements of an index, grouped by key id in one array, with the start of each key's range in another
+class IndexedElements<E> {
+    private final Object[] elements;
+    private final int[] offsets;
+
+    IndexedElements(List<E> list, int[] keyIds, int keyCount) {
+        offsets = new int[keyCount + 1];
+        for (int keyId : keyIds)
+            offsets[keyId + 1]++;
+        for (int k = 0; k < keyCount; k++)
+            offsets[k + 1] += offsets[k];
+        elements = new Object[keyIds.length];
+        final int[] positions = Arrays.copyOf(offsets, keyCount);
+        for (int i = 0; i < keyIds.length; i++)
+            elements[positions[keyIds[i]]++] = list.get(i);
+    }
+
+    Stream<E> get(int keyId) {
+        if (keyId < 0)
+            return Stream.empty();
+        return new IndexSliceStream<E>(elements, offsets[keyId], offsets[keyId + 1]);
+    }
+
+    // a power of two with at least twice as many slots as there can be keys, so probe sequences stay short
+    static int capacityFor(int size) {
+        if (size > 1 << 29)
+            throw new IllegalStateException("Unable to index the stream because it has more than " + (1 << 29) + " elements!");
+        int capacity = 2;
+        while (capacity < size * 2)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    static int spread(int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,22 @@
+package com.amoerie.jstreams;
+
+/**
+ * Represents a read-only lookup structure over the elements of a stream, where multiple elements can share the same int key.
+ * An int index is the result of {@link Stream#toIntIndex(com.amoerie.jstreams.functions.IntMapper)}.
+ * @param <E> the type of the elements
+ */
+public abstract class IntIndex<E> {
+    /**
+     * Gets the elements with the given key
+     * @param key the key to look up
+     * @return a stream of the elements with the given key in their original order, or an empty stream if there are none
+     */
+    public abstract Stream<E> get(int key);
+
+    /**
+     * Checks whether any element has the given key
+     * @param key the key to look up
+     * @return true if at least one element has the given key
+     */
+    public abstract boolean containsKey(int key);
+}
@@ -1,6 +1,9 @@
 package com.amoerie.jstreams;
 
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.SortedSet;
 
 class IterableStream<E> extends Stream<E> {
     private final Iterable<E> iterable;
@@ -9,6 +12,23 @@ class IterableStream<E> extends Stream<E> {
         this.iterable = iterable;
     }
 
+    Iterable<E> getIterable() {
+        return iterable;
+    }
+
+    @Override
+    int characteristics() {
+        // only hash sets are known to hold elements that are distinct by equals, a sorted set or any other set may compare them differently
+        final int distinct = iterable instanceof HashSet ? DISTINCT : 0;
+        return iterable instanceof SortedSet ? SORTED | distinct : distinct;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Comparator<? super E> comparator() {
+        return iterable instanceof SortedSet ? ((SortedSet<E>) iterable).comparator() : null;
+    }
+
     @Override
     public Iterator<E> iterator() {
         return this.iterable.iterator();
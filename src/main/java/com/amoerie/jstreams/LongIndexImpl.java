@@ -0,0 +1,50 @@
+package com.amoerie.jstreams;
+
+import java.util.List;
+
+import com.amoerie.jstreams.functions.LongMapper;
+
+class LongIndexImpl<E> extends LongIndex<E> {
+    private final long[] keys;
+    // the id of the key in each slot plus one, zero for empty slots
+    private final int[] ids;
+    private final int mask;
+    private final IndexedElements<E> elements;
+
+    LongIndexImpl(List<E> list, LongMapper<E> keyMapper) {
+        final int capacity = IndexedElements.capacityFor(list.size());
+        keys = new long[capacity];
+        ids = new int[capacity];
+        mask = capacity - 1;
+        final int[] keyIds = new int[list.size()];
+        int keyCount = 0;
+        for (int i = 0; i < keyIds.length; i++) {
+            final long key = keyMapper.map(list.get(i));
+            final int slot = slotOf(key);
+            if (ids[slot] == 0) {
+                keys[slot] = key;
+                ids[slot] = ++keyCount;
+            }
+            keyIds[i] = ids[slot] - 1;
+        }
+        elements = new IndexedElements<E>(list, keyIds, keyCount);
+    }
+
+    // the slot that holds the key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int slot = IndexedElements.spread((int) (key ^ (key >>> 32))) & mask;
+        while (ids[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    @Override
+    public Stream<E> get(long key) {
+        return elements.get(ids[slotOf(key)] - 1);
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        return ids[slotOf(key)] != 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.amoerie.jstreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+final class MappedFile {
+
+    private MappedFile() {
+    }
+
+    static MappedByteBuffer map(File file, long position, long size) {
+        try {
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                // the mapping stays valid after the channel has been closed
+                return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to map " + file + " into memory", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.amoerie.jstreams;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+class MappedLine implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private final Charset charset;
+    // whether every byte of the line decodes to exactly one char of the same value, so the bytes can be read as chars without decoding
+    private final boolean isSingleByte;
+    private String decoded;
+
+    MappedLine(ByteBuffer buffer, int offset, int length, Charset charset, boolean isSingleByte) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+        this.isSingleByte = isSingleByte;
+    }
+
+    @Override
+    public int length() {
+        return isSingleByte ? length : decoded().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (!isSingleByte)
+            return decoded().charAt(index);
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a line of length " + length);
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (!isSingleByte)
+            return decoded().subSequence(start, end);
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") is out of bounds for a line of length " + length);
+        return new MappedLine(buffer, offset + start, end - start, charset, true);
+    }
+
+    // lines with multi-byte characters are decoded once, the first time they are read as chars
+    private String decoded() {
+        if (decoded == null)
+            decoded = decode();
+        return decoded;
+    }
+
+    private String decode() {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public String toString() {
+        return decoded != null ? decoded : decode();
+    }
+}
@@ -0,0 +1,55 @@
+package com.amoerie.jstreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+class MappedLineChunksStream extends Stream<Stream<CharSequence>> {
+
+    private final File file;
+    private final Charset charset;
+    private final int numberOfChunks;
+    private final long regionSize;
+
+    MappedLineChunksStream(File file, Charset charset, int numberOfChunks, long regionSize) {
+        this.file = file;
+        this.charset = charset;
+        this.numberOfChunks = numberOfChunks;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public Iterator<Stream<CharSequence>> iterator() {
+        final List<Stream<CharSequence>> chunks = new ArrayList<Stream<CharSequence>>(numberOfChunks);
+        try {
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                final long length = randomAccessFile.length();
+                long chunkStart = 0;
+                for (int chunk = 1; chunk <= numberOfChunks && chunkStart < length; chunk++) {
+                    long chunkEnd = chunk == numberOfChunks ? length : Math.max(chunkStart, length / numberOfChunks * chunk);
+                    // move the boundary forward so it falls right after a line break
+                    if (chunkEnd < length && chunkEnd > 0) {
+                        randomAccessFile.seek(chunkEnd - 1);
+                        int b;
+                        while ((b = randomAccessFile.read()) != -1 && b != '\n')
+                            chunkEnd++;
+                        chunkEnd = Math.min(chunkEnd, length);
+                    }
+                    if (chunkEnd > chunkStart)
+                        chunks.add(new MappedLinesStream(file, charset, chunkStart, chunkEnd, regionSize));
+                    chunkStart = chunkEnd;
+                }
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to split " + file + " into chunks", e);
+        }
+        return Stream.create(chunks).iterator();
+    }
+}
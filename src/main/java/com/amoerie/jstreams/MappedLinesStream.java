@@ -0,0 +1,107 @@
+package com.amoerie.jstreams;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class MappedLinesStream extends Stream<CharSequence> {
+
+    static final long DEFAULT_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final File file;
+    private final Charset charset;
+    private final long start;
+    private final long end;
+    private final long regionSize;
+
+    MappedLinesStream(File file, Charset charset, long start, long end, long regionSize) {
+        this.file = file;
+        this.charset = charset;
+        this.start = start;
+        this.end = end;
+        this.regionSize = regionSize;
+    }
+
+    // lines can only be found by looking for '\n' bytes, and ASCII lines read without decoding, when the charset encodes ASCII as single bytes with the same values
+    // and every other char as bytes outside of ASCII. Stateful charsets like ISO-2022-JP also encode ASCII as itself, but use ASCII bytes for other chars too,
+    // so rather than checking how ASCII is encoded only charsets that are known to work this way are allowed
+    static boolean isAsciiCompatible(Charset charset) {
+        final String name = charset.name();
+        return name.equals("US-ASCII") || name.equals("UTF-8") || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+    }
+
+    @Override
+    public Iterator<CharSequence> iterator() {
+        if (!file.isFile())
+            throw new IllegalStateException("Unable to read lines from " + file + " because it is not a readable file!");
+        // a negative end means the stream covers the file up to its length at the time of iteration
+        final long stop = end < 0 ? file.length() : end;
+        // in ISO-8859-1 every byte is the char with the same value, in other charsets only ASCII bytes are
+        final boolean isLatin1 = charset.name().equals("ISO-8859-1");
+        return new Iterator<CharSequence>() {
+
+            private MappedByteBuffer region;
+            private long regionStart;
+            private long position = start;
+            private CharSequence nextLine;
+
+            private void mapRegionAt(long offset) {
+                region = MappedFile.map(file, offset, Math.min(regionSize, stop - offset));
+                regionStart = offset;
+            }
+
+            private boolean tryPrepareNextLine() {
+                if (nextLine != null)
+                    return true;
+                if (position >= stop)
+                    return false;
+                if (region == null || position >= regionStart + region.limit())
+                    mapRegionAt(position);
+                while (true) {
+                    final int from = (int) (position - regionStart);
+                    final int limit = region.limit();
+                    int lineEnd = from;
+                    boolean isAscii = true;
+                    byte b;
+                    while (lineEnd < limit && (b = region.get(lineEnd)) != '\n') {
+                        isAscii &= b >= 0;
+                        lineEnd++;
+                    }
+                    if (lineEnd == limit && regionStart + limit < stop) {
+                        // the line crosses the end of this region, so map a new region that starts with this line
+                        if (from == 0)
+                            throw new IllegalStateException("Unable to read " + file + " because a line is longer than " + regionSize + " bytes");
+                        mapRegionAt(position);
+                        continue;
+                    }
+                    position = regionStart + lineEnd + 1;
+                    if (lineEnd > from && region.get(lineEnd - 1) == '\r')
+                        lineEnd--;
+                    nextLine = new MappedLine(region, from, lineEnd - from, charset, isLatin1 || isAscii);
+                    return true;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextLine();
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!tryPrepareNextLine())
+                    throw new NoSuchElementException();
+                final CharSequence line = nextLine;
+                nextLine = null;
+                return line;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
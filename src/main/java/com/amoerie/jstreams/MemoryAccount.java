@@ -0,0 +1,91 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+
+// the memory that one operation holds on to, charged against the budget of the execution context it was started in
+class MemoryAccount {
+
+    // the account of operations that run outside of an execution context, which does not keep track of anything
+    private static final MemoryAccount NONE = new MemoryAccount(null, null);
+
+    private final ExecutionContext context;
+    private final String stage;
+    // an operation that is abandoned before its iteration is over releases its elements when the task it runs in returns
+    private final Runnable releaser = new Runnable() {
+        @Override
+        public void run() {
+            release();
+        }
+    };
+    private long usage;
+    private volatile long peak;
+    private boolean isReleased;
+
+    private MemoryAccount(ExecutionContext context, String stage) {
+        this.context = context;
+        this.stage = stage;
+    }
+
+    static MemoryAccount open(String stage) {
+        final ExecutionContext context = ExecutionContext.current();
+        if (context == null)
+            return NONE;
+        final MemoryAccount account = new MemoryAccount(context, stage);
+        context.register(account);
+        ExecutionContext.addExitHook(account.releaser);
+        return account;
+    }
+
+    String getStage() {
+        return stage;
+    }
+
+    long getPeak() {
+        return peak;
+    }
+
+    void add(Object element) {
+        if (context == null)
+            return;
+        final long size = context.sizeOf(element);
+        context.allocate(stage, size);
+        usage += size;
+        if (usage > peak)
+            peak = usage;
+    }
+
+    void release() {
+        if (context == null || isReleased)
+            return;
+        isReleased = true;
+        context.release(usage);
+        usage = 0;
+        context.unregister(this);
+        ExecutionContext.removeExitHook(releaser);
+    }
+
+    // the elements of a materialised operation are held until its iteration is over
+    <E> Iterator<E> releaseWhenDone(final Iterator<E> iterator) {
+        if (context == null)
+            return iterator;
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                if (iterator.hasNext())
+                    return true;
+                release();
+                return false;
+            }
+
+            @Override
+            public E next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.amoerie.jstreams;
+
+/**
+ * Thrown when a stream that runs in an {@link ExecutionContext} holds on to more elements than the memory budget of that context allows.
+ */
+public class MemoryBudgetExceededException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String stage;
+    private final long budget;
+    private final long usage;
+
+    MemoryBudgetExceededException(String stage, long budget, long usage) {
+        super("Unable to continue the " + stage + " operation because the estimated memory usage of " + usage + " bytes exceeds the budget of " + budget + " bytes!");
+        this.stage = stage;
+        this.budget = budget;
+        this.usage = usage;
+    }
+
+    /**
+     * Gets the name of the operation that exceeded the budget, such as sort or groupBy
+     * @return the name of the operation
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Gets the memory budget of the execution context
+     * @return the budget in bytes
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the estimated memory usage of all operations in the execution context, at the moment the budget was exceeded
+     * @return the usage in bytes
+     */
+    public long getUsage() {
+        return usage;
+    }
+}
@@ -0,0 +1,82 @@
+package com.amoerie.jstreams;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+class MergeSortedStream<E> extends Stream<E> {
+
+    private final Comparator<E> comparator;
+    private final Iterable<Stream<E>> streams;
+
+    MergeSortedStream(Comparator<E> comparator, Iterable<Stream<E>> streams) {
+        this.comparator = comparator;
+        this.streams = streams;
+    }
+
+    private static class Head<E> {
+        private final Iterator<E> iterator;
+        private final int source;
+        private E element;
+
+        private Head(Iterator<E> iterator, int source) {
+            this.iterator = iterator;
+            this.source = source;
+        }
+    }
+
+    @Override
+    int characteristics() {
+        return SORTED;
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // ties are broken by the position of the input, which keeps the merge stable
+        final PriorityQueue<Head<E>> heads = new PriorityQueue<Head<E>>(11, new Comparator<Head<E>>() {
+            @Override
+            public int compare(Head<E> left, Head<E> right) {
+                final int comparison = comparator.compare(left.element, right.element);
+                return comparison != 0 ? comparison : left.source - right.source;
+            }
+        });
+        int source = 0;
+        for (Stream<E> stream : streams) {
+            final Head<E> head = new Head<E>(stream.iterator(), source++);
+            if (head.iterator.hasNext()) {
+                head.element = head.iterator.next();
+                heads.add(head);
+            }
+        }
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                final Head<E> head = heads.poll();
+                if (head == null)
+                    throw new NoSuchElementException();
+                final E element = head.element;
+                if (head.iterator.hasNext()) {
+                    head.element = head.iterator.next();
+                    heads.add(head);
+                }
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.amoerie.jstreams;
+
+import com.amoerie.jstreams.functions.Mapper;
+
+/**
+ * Represents a sorted stream, which can be sorted further by additional keys.
+ * An ordered stream is the result of {@link Stream#orderBy(java.util.Comparator)}, {@link Stream#orderBy(Mapper)} and {@link Stream#orderByDescending(Mapper)}.
+ * @param <E> the type of the elements
+ */
+public abstract class OrderedStream<E> extends Stream<E> {
+    /**
+     * Sorts the elements that are equal according to the current sort order by another property, provided that that property implements Comparable.
+     * The property is computed only once per element, no matter how many comparisons the sort needs.
+     *
+     * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
+     * @param <T>    the type of the property that is the basis for the comparison
+     * @return a new stream containing all elements of this stream sorted by the current sort order and then by the given property
+     */
+    public abstract <T extends Comparable<T>> OrderedStream<E> thenBy(Mapper<E, T> mapper);
+
+    /**
+     * Sorts the elements that are equal according to the current sort order descendingly by another property, provided that that property implements Comparable.
+     * The property is computed only once per element, no matter how many comparisons the sort needs.
+     *
+     * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
+     * @param <T>    the type of the property that is the basis for the comparison
+     * @return a new stream containing all elements of this stream sorted by the current sort order and then descendingly by the given property
+     */
+    public abstract <T extends Comparable<T>> OrderedStream<E> thenByDescending(Mapper<E, T> mapper);
+
+    /**
+     * Sorts this stream on as many threads as there are available processors.
+     * See {@link #parallel(int)}.
+     *
+     * @return a new stream containing the same elements in the same order, sorted in parallel
+     */
+    public abstract OrderedStream<E> parallel();
+
+    /**
+     * Sorts this stream on the given number of threads. The elements are split in chunks which are sorted separately and then merged,
+     * which is still stable: elements that are equal keep their original order.
+     * Small streams are still sorted on the calling thread, because the overhead of the threads would outweigh the gain.
+     *
+     * @param threads the maximum number of threads to sort with
+     * @return a new stream containing the same elements in the same order, sorted in parallel
+     */
+    public abstract OrderedStream<E> parallel(int threads);
+}
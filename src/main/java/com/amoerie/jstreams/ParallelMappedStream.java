@@ -0,0 +1,133 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amoerie.jstreams.functions.Mapper;
+
+class ParallelMappedStream<E, R> extends Stream<R> {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final Stream<E> stream;
+    private final Mapper<E, R> mapper;
+    private final int threads;
+    private final int window;
+
+    ParallelMappedStream(Stream<E> stream, Mapper<E, R> mapper, int threads, int window) {
+        this.stream = stream;
+        this.mapper = mapper;
+        this.threads = threads;
+        this.window = window;
+    }
+
+    private ThreadPoolExecutor createExecutor() {
+        // the threads stop by themselves when they have been idle for a second, so an iteration that is abandoned does not leak them
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "jstreams-parallel-map-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public Iterator<R> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        final Checkpoint checkpoint = Checkpoint.open();
+        return new Iterator<R>() {
+            private ThreadPoolExecutor executor;
+            // the elements that are being mapped, in their original order, so the results come out in that order no matter which finishes first
+            private final Deque<Future<R>> pending = new ArrayDeque<Future<R>>(window);
+
+            private void readAhead() {
+                while (pending.size() < window && iterator.hasNext()) {
+                    tick();
+                    final E element = iterator.next();
+                    if (executor == null)
+                        executor = createExecutor();
+                    pending.add(executor.submit(ExecutionContext.propagate(new Callable<R>() {
+                        @Override
+                        public R call() {
+                            return mapper.map(element);
+                        }
+                    })));
+                }
+                if (pending.isEmpty() && executor != null) {
+                    executor.shutdown();
+                    executor = null;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                readAhead();
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public R next() {
+                readAhead();
+                if (pending.isEmpty())
+                    throw new NoSuchElementException();
+                final Future<R> result = pending.poll();
+                try {
+                    return checkpoint.await(result);
+                } catch (CancellationException e) {
+                    cancelPending();
+                    throw e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while mapping the stream", e);
+                } catch (ExecutionException e) {
+                    cancelPending();
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new IllegalStateException("Unable to map the stream", cause);
+                }
+            }
+
+            private void tick() {
+                try {
+                    checkpoint.tick();
+                } catch (CancellationException e) {
+                    cancelPending();
+                    throw e;
+                }
+            }
+
+            private void cancelPending() {
+                for (Future<R> future : pending)
+                    future.cancel(true);
+                pending.clear();
+                if (executor != null) {
+                    executor.shutdownNow();
+                    executor = null;
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class ParallelSort {
+
+    // below this size the cost of handing chunks to other threads outweighs the gain
+    static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private ParallelSort() {
+    }
+
+    /**
+     * Sorts the array stably, splitting it in one chunk per thread and merging the sorted chunks pairwise.
+     */
+    static <T> void sort(final T[] array, final Comparator<? super T> comparator, final int threads) {
+        if (threads <= 1 || array.length < SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(array, comparator);
+            return;
+        }
+        final int chunks = Math.min(threads, array.length / (SEQUENTIAL_THRESHOLD / 2));
+        final int[] bounds = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++)
+            bounds[i] = (int) ((long) array.length * i / chunks);
+        final Checkpoint checkpoint = Checkpoint.open();
+        final ExecutorService executor = Executors.newFixedThreadPool(chunks, new SortThreadFactory());
+        try {
+            final List<Future<?>> sorts = new ArrayList<Future<?>>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final int from = bounds[i];
+                final int to = bounds[i + 1];
+                sorts.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Arrays.sort(array, from, to, comparator);
+                    }
+                }));
+            }
+            awaitAll(sorts, checkpoint);
+            mergeRuns(array, comparator, bounds, executor, checkpoint);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void mergeRuns(T[] array, final Comparator<? super T> comparator, int[] bounds, ExecutorService executor, Checkpoint checkpoint) {
+        T[] source = array;
+        T[] target = (T[]) new Object[array.length];
+        int runs = bounds.length - 1;
+        while (runs > 1) {
+            final List<Future<?>> merges = new ArrayList<Future<?>>(runs / 2);
+            final int[] mergedBounds = new int[(runs + 1) / 2 + 1];
+            for (int i = 0; i < runs; i += 2) {
+                final T[] from = source;
+                final T[] to = target;
+                final int leftStart = bounds[i];
+                final int rightStart = bounds[Math.min(i + 1, runs)];
+                final int rightEnd = bounds[Math.min(i + 2, runs)];
+                mergedBounds[i / 2] = leftStart;
+                merges.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        merge(from, to, leftStart, rightStart, rightEnd, comparator);
+                    }
+                }));
+            }
+            mergedBounds[mergedBounds.length - 1] = array.length;
+            awaitAll(merges, checkpoint);
+            final T[] merged = target;
+            target = source;
+            source = merged;
+            bounds = mergedBounds;
+            runs = bounds.length - 1;
+        }
+        if (source != array)
+            System.arraycopy(source, 0, array, 0, array.length);
+    }
+
+    private static <T> void merge(T[] from, T[] to, int leftStart, int rightStart, int rightEnd, Comparator<? super T> comparator) {
+        int left = leftStart;
+        int right = rightStart;
+        int index = leftStart;
+        // taking from the left run on ties is what keeps the merge stable
+        while (left < rightStart && right < rightEnd)
+            to[index++] = comparator.compare(from[right], from[left]) < 0 ? from[right++] : from[left++];
+        while (left < rightStart)
+            to[index++] = from[left++];
+        while (right < rightEnd)
+            to[index++] = from[right++];
+    }
+
+    private static void awaitAll(List<Future<?>> futures, Checkpoint checkpoint) {
+        // a cancelled sort stops waiting for its chunks, and shutting down the executor lets go of the threads
+        try {
+            for (Future<?> future : futures)
+                checkpoint.await(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sorting the stream", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException("Unable to sort the stream", cause);
+        }
+    }
+
+    private static class SortThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "jstreams-sort-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
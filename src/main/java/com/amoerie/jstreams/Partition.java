@@ -0,0 +1,20 @@
+package com.amoerie.jstreams;
+
+/**
+ * Represents the two halves of a stream that was split by a filter.
+ * A partition is the result of {@link Stream#partition(com.amoerie.jstreams.functions.Filter)} and {@link Stream#partitionLazily(com.amoerie.jstreams.functions.Filter)}.
+ * @param <T> the type of each half
+ */
+public abstract class Partition<T> {
+    /**
+     * Gets the elements that satisfied the filter
+     * @return the elements that satisfied the filter, in their original order
+     */
+    public abstract T getAccepted();
+
+    /**
+     * Gets the elements that did not satisfy the filter
+     * @return the elements that did not satisfy the filter, in their original order
+     */
+    public abstract T getRejected();
+}
@@ -0,0 +1,22 @@
+package com.amoerie.jstreams;
+
+class PartitionImpl<T> extends Partition<T> {
+
+    private final T accepted;
+    private final T rejected;
+
+    public PartitionImpl(T accepted, T rejected) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+    }
+
+    @Override
+    public T getAccepted() {
+        return this.accepted;
+    }
+
+    @Override
+    public T getRejected() {
+        return this.rejected;
+    }
+}
@@ -0,0 +1,54 @@
+package com.amoerie.jstreams;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class PartitionedStream<E> extends Stream<E> {
+
+    private final Stream<E> stream;
+    private final Partitioner<E> partitioner;
+    private final boolean isAccepted;
+    private boolean isIterated;
+
+    PartitionedStream(Stream<E> stream, Partitioner<E> partitioner, boolean isAccepted) {
+        this.stream = stream;
+        this.partitioner = partitioner;
+        this.isAccepted = isAccepted;
+    }
+
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (isIterated)
+            throw new IllegalStateException("Unable to iterate over a lazy partition more than once!");
+        isIterated = true;
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return partitioner.hasNext(isAccepted);
+            }
+
+            @Override
+            public E next() {
+                if (!partitioner.hasNext(isAccepted))
+                    throw new NoSuchElementException();
+                return partitioner.next(isAccepted);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import com.amoerie.jstreams.functions.Filter;
+
+// splits one iteration of a stream over two sides, buffering the elements of a side until that side asks for them
+class Partitioner<E> {
+
+    // the buffers cannot hold null
+    private static final Object NULL_ELEMENT = new Object();
+
+    private final Stream<E> stream;
+    private final Filter<E> filter;
+    private final Deque<Object> acceptedBuffer = new ArrayDeque<Object>();
+    private final Deque<Object> rejectedBuffer = new ArrayDeque<Object>();
+    private Iterator<E> iterator;
+
+    Partitioner(Stream<E> stream, Filter<E> filter) {
+        this.stream = stream;
+        this.filter = filter;
+    }
+
+    // reads the stream until the given side has an element, putting the elements of the other side aside
+    boolean hasNext(boolean isAccepted) {
+        final Deque<Object> buffer = isAccepted ? acceptedBuffer : rejectedBuffer;
+        if (iterator == null)
+            iterator = stream.iterator();
+        while (buffer.isEmpty() && iterator.hasNext()) {
+            final E element = iterator.next();
+            (filter.apply(element) ? acceptedBuffer : rejectedBuffer).add(element == null ? NULL_ELEMENT : element);
+        }
+        return !buffer.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    E next(boolean isAccepted) {
+        final Object element = (isAccepted ? acceptedBuffer : rejectedBuffer).poll();
+        return element == NULL_ELEMENT ? null : (E) element;
+    }
+}
@@ -0,0 +1,174 @@
+package com.amoerie.jstreams;
+
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PrefetchStream<E> extends Stream<E> {
+
+    private static final Object NULL_ELEMENT = new Object();
+    private static final Object END = new Object();
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final Stream<E> stream;
+    private final int bufferSize;
+
+    PrefetchStream(Stream<E> stream, int bufferSize) {
+        this.stream = stream;
+        this.bufferSize = bufferSize;
+    }
+
+    private static class Failure {
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    private static class Producer<E> implements Runnable {
+        private final Stream<E> stream;
+        private final SpscRingBuffer buffer;
+        // set by the consumer when it is done or stops early, or when the task it iterates in returns before it is done
+        private final AtomicBoolean isStopped;
+        // outside of an execution context nothing tells the producer that the consumer stopped early,
+        // so as a last resort it does not keep the consumer alive and stops once the consumer has been collected
+        private final WeakReference<Object> consumer;
+
+        private Producer(Stream<E> stream, SpscRingBuffer buffer, AtomicBoolean isStopped, Object consumer) {
+            this.stream = stream;
+            this.buffer = buffer;
+            this.isStopped = isStopped;
+            this.consumer = new WeakReference<Object>(consumer);
+        }
+
+        private Checkpoint checkpoint;
+
+        @Override
+        public void run() {
+            try {
+                checkpoint = Checkpoint.open();
+                for (E e : stream) {
+                    checkpoint.tick();
+                    if (isStopped.get() || !offer(e == null ? NULL_ELEMENT : e))
+                        return;
+                }
+                offer(END);
+            } catch (Throwable t) {
+                offer(new Failure(t));
+            }
+        }
+
+        private boolean offer(Object item) {
+            for (int attempt = 0; !buffer.offer(item); attempt++) {
+                // nobody takes from a full buffer after the consumer stopped
+                if (isStopped.get() || consumer.get() == null || checkpoint != null && checkpoint.isCancelled())
+                    return false;
+                SpscRingBuffer.idle(attempt);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final SpscRingBuffer buffer = new SpscRingBuffer(bufferSize);
+        final Checkpoint checkpoint = Checkpoint.open();
+        final AtomicBoolean isStopped = new AtomicBoolean();
+        // an iteration that is abandoned before the end stops the producer when the task it runs in returns
+        final Runnable stop = new Runnable() {
+            @Override
+            public void run() {
+                isStopped.set(true);
+            }
+        };
+        ExecutionContext.addExitHook(stop);
+        final Iterator<E> iterator = new StoppableIterator<E>() {
+
+            private boolean isNextElementReady;
+            private boolean isDone;
+            private Object nextElement;
+
+            private void finish() {
+                isDone = true;
+                isStopped.set(true);
+                ExecutionContext.removeExitHook(stop);
+            }
+
+            private boolean tryPrepareNextElement() {
+                if (isNextElementReady || isDone)
+                    return isNextElementReady;
+                Object element = buffer.poll();
+                for (int attempt = 0; element == null; attempt++) {
+                    try {
+                        checkpoint.tick();
+                    } catch (RuntimeException e) {
+                        finish();
+                        throw e;
+                    }
+                    SpscRingBuffer.idle(attempt);
+                    element = buffer.poll();
+                }
+                if (element == END) {
+                    finish();
+                    return false;
+                }
+                if (element instanceof Failure) {
+                    finish();
+                    final Throwable throwable = ((Failure) element).throwable;
+                    if (throwable instanceof RuntimeException)
+                        throw (RuntimeException) throwable;
+                    if (throwable instanceof Error)
+                        throw (Error) throwable;
+                    throw new IllegalStateException("Unable to prefetch the stream", throwable);
+                }
+                nextElement = element;
+                isNextElementReady = true;
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextElement();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!tryPrepareNextElement())
+                    throw new NoSuchElementException();
+                isNextElementReady = false;
+                final Object element = nextElement;
+                nextElement = null;
+                return element == NULL_ELEMENT ? null : (E) element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            void stop() {
+                finish();
+            }
+        };
+        final Thread thread = new Thread(ExecutionContext.propagate(new Producer<E>(stream, buffer, isStopped, iterator)), "jstreams-prefetch-" + threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        thread.start();
+        return iterator;
+    }
+}
@@ -0,0 +1,185 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+import com.amoerie.jstreams.reactive.Publisher;
+import com.amoerie.jstreams.reactive.Subscriber;
+import com.amoerie.jstreams.reactive.Subscription;
+
+class PublisherStream<E> extends Stream<E> {
+
+    // the queue cannot hold null, and marks the end of the elements
+    private static final Object NULL_ELEMENT = new Object();
+    private static final Object COMPLETE = new Object();
+
+    private final Publisher<E> publisher;
+    private final int prefetch;
+
+    PublisherStream(Publisher<E> publisher, int prefetch) {
+        this.publisher = publisher;
+        this.prefetch = prefetch;
+    }
+
+    private static class Failure {
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    // buffers at most the prefetched elements, and replenishes them in batches of half the buffer as they are consumed
+    private static class BufferingSubscriber<E> implements Subscriber<E> {
+        private final int prefetch;
+        private final int replenishment;
+        // one extra slot for the completion or the failure
+        private final BlockingQueue<Object> queue;
+        private volatile Subscription subscription;
+        // once cancelled, the publisher may still publish the elements that were already on their way, which are dropped
+        private volatile boolean isCancelled;
+        private int consumedSinceReplenishment;
+
+        private BufferingSubscriber(int prefetch) {
+            this.prefetch = prefetch;
+            this.replenishment = prefetch - prefetch / 2;
+            this.queue = new ArrayBlockingQueue<Object>(prefetch + 1);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            if (isCancelled)
+                subscription.cancel();
+            else
+                subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(E e) {
+            if (isCancelled)
+                return;
+            if (!queue.offer(e == null ? NULL_ELEMENT : e)) {
+                cancel();
+                queue.clear();
+                queue.offer(new Failure(new IllegalStateException("Unable to buffer the element because the publisher published more elements than were requested!")));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!isCancelled)
+                queue.offer(new Failure(throwable));
+        }
+
+        @Override
+        public void onComplete() {
+            if (!isCancelled)
+                queue.offer(COMPLETE);
+        }
+
+        private void cancel() {
+            if (isCancelled)
+                return;
+            isCancelled = true;
+            // a subscription that arrives later is cancelled as soon as it arrives
+            final Subscription subscription = this.subscription;
+            if (subscription != null)
+                subscription.cancel();
+        }
+
+        private Object take(Checkpoint checkpoint) {
+            try {
+                return checkpoint.take(queue);
+            } catch (CancellationException e) {
+                cancel();
+                throw e;
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the publisher", e);
+            }
+        }
+
+        private void consumed() {
+            if (++consumedSinceReplenishment == replenishment) {
+                consumedSinceReplenishment = 0;
+                subscription.request(replenishment);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Checkpoint checkpoint = Checkpoint.open();
+        final BufferingSubscriber<E> subscriber = new BufferingSubscriber<E>(prefetch);
+        // an iteration that is abandoned before the end cancels its subscription when the task it runs in returns
+        final Runnable cancellation = new Runnable() {
+            @Override
+            public void run() {
+                subscriber.cancel();
+            }
+        };
+        ExecutionContext.addExitHook(cancellation);
+        publisher.subscribe(subscriber);
+        return new Iterator<E>() {
+
+            private boolean isNextElementReady;
+            private boolean isDone;
+            private Object nextElement;
+
+            private boolean tryPrepareNextElement() {
+                if (isNextElementReady || isDone)
+                    return isNextElementReady;
+                final Object element = subscriber.take(checkpoint);
+                if (element == COMPLETE) {
+                    isDone = true;
+                    ExecutionContext.removeExitHook(cancellation);
+                    return false;
+                }
+                if (element instanceof Failure) {
+                    isDone = true;
+                    ExecutionContext.removeExitHook(cancellation);
+                    final Throwable throwable = ((Failure) element).throwable;
+                    if (throwable instanceof RuntimeException)
+                        throw (RuntimeException) throwable;
+                    if (throwable instanceof Error)
+                        throw (Error) throwable;
+                    throw new IllegalStateException("The publisher failed", throwable);
+                }
+                nextElement = element;
+                isNextElementReady = true;
+                subscriber.consumed();
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextElement();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!tryPrepareNextElement())
+                    throw new NoSuchElementException();
+                isNextElementReady = false;
+                final Object element = nextElement;
+                nextElement = null;
+                return element == NULL_ELEMENT ? null : (E) element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+final class RadixSort {
+
+    private static final int RADIX = 256;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private RadixSort() {
+    }
+
+    private static int[] identity(int length) {
+        final int[] indices = new int[length];
+        for (int i = 0; i < length; i++)
+            indices[i] = i;
+        return indices;
+    }
+
+    /**
+     * Computes the stable sorted order of the keys with a least significant digit radix sort, one byte per pass.
+     * @return the original indices of the keys, in sorted order
+     */
+    static int[] sort(int[] keys) {
+        final int length = keys.length;
+        if (length < 2)
+            return identity(length);
+        int[] sortedKeys = keys.clone();
+        int[] indices = identity(length);
+        int[] keysBuffer = new int[length];
+        int[] indicesBuffer = new int[length];
+        final int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++)
+                counts[digit(sortedKeys[i], shift) + 1]++;
+            // a pass in which every key has the same digit would not change the order
+            if (counts[digit(sortedKeys[0], shift) + 1] == length)
+                continue;
+            for (int d = 0; d < RADIX; d++)
+                counts[d + 1] += counts[d];
+            for (int i = 0; i < length; i++) {
+                final int position = counts[digit(sortedKeys[i], shift)]++;
+                keysBuffer[position] = sortedKeys[i];
+                indicesBuffer[position] = indices[i];
+            }
+            int[] swap = sortedKeys;
+            sortedKeys = keysBuffer;
+            keysBuffer = swap;
+            swap = indices;
+            indices = indicesBuffer;
+            indicesBuffer = swap;
+        }
+        return indices;
+    }
+
+    private static int digit(int key, int shift) {
+        // flipping the sign bit makes negative numbers sort before positive numbers
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & 0xff;
+    }
+
+    /**
+     * Computes the stable sorted order of the keys with a least significant digit radix sort, one byte per pass.
+     * @return the original indices of the keys, in sorted order
+     */
+    static int[] sort(long[] keys) {
+        final int length = keys.length;
+        if (length < 2)
+            return identity(length);
+        long[] sortedKeys = keys.clone();
+        int[] indices = identity(length);
+        long[] keysBuffer = new long[length];
+        int[] indicesBuffer = new int[length];
+        final int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++)
+                counts[digit(sortedKeys[i], shift) + 1]++;
+            if (counts[digit(sortedKeys[0], shift) + 1] == length)
+                continue;
+            for (int d = 0; d < RADIX; d++)
+                counts[d + 1] += counts[d];
+            for (int i = 0; i < length; i++) {
+                final int position = counts[digit(sortedKeys[i], shift)]++;
+                keysBuffer[position] = sortedKeys[i];
+                indicesBuffer[position] = indices[i];
+            }
+            long[] swapKeys = sortedKeys;
+            sortedKeys = keysBuffer;
+            keysBuffer = swapKeys;
+            int[] swapIndices = indices;
+            indices = indicesBuffer;
+            indicesBuffer = swapIndices;
+        }
+        return indices;
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) (((key ^ Long.MIN_VALUE) >>> shift) & 0xff);
+    }
+
+    /**
+     * Computes the stable sorted order of the keys with a most significant digit radix sort, one byte of a char per digit.
+     * Small ranges are finished with an insertion sort.
+     * @return the original indices of the keys, in sorted order
+     */
+    static int[] sort(String[] keys) {
+        final int length = keys.length;
+        final String[] sortedKeys = keys.clone();
+        final int[] indices = identity(length);
+        final String[] keysBuffer = new String[length];
+        final int[] indicesBuffer = new int[length];
+        // digits run from 0 to RADIX, since 0 marks the end of a key, and are counted with an offset of 2
+        final int[] counts = new int[RADIX + 3];
+        // ranges of keys that share the same first digits, as {from, to, digit}, handled without recursion to support long common prefixes
+        final Deque<int[]> ranges = new ArrayDeque<int[]>();
+        if (length > 1)
+            ranges.push(new int[]{0, length, 0});
+        while (!ranges.isEmpty()) {
+            final int[] range = ranges.pop();
+            final int from = range[0];
+            final int to = range[1];
+            final int digit = range[2];
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(sortedKeys, indices, from, to);
+                continue;
+            }
+            Arrays.fill(counts, 0);
+            for (int i = from; i < to; i++)
+                counts[digit(sortedKeys[i], digit) + 2]++;
+            for (int d = 0; d <= RADIX; d++)
+                counts[d + 1] += counts[d];
+            for (int i = from; i < to; i++) {
+                final int position = counts[digit(sortedKeys[i], digit) + 1]++;
+                keysBuffer[position] = sortedKeys[i];
+                indicesBuffer[position] = indices[i];
+            }
+            System.arraycopy(keysBuffer, 0, sortedKeys, from, to - from);
+            System.arraycopy(indicesBuffer, 0, indices, from, to - from);
+            // after distributing, bucket d spans counts[d] to counts[d + 1], bucket 0 holds the keys that have no more digits
+            for (int d = 1; d <= RADIX; d++) {
+                final int bucketFrom = from + counts[d];
+                final int bucketTo = from + counts[d + 1];
+                if (bucketTo - bucketFrom > 1)
+                    ranges.push(new int[]{bucketFrom, bucketTo, digit + 1});
+            }
+        }
+        return indices;
+    }
+
+    private static int digit(String key, int digit) {
+        final int charIndex = digit >> 1;
+        if (charIndex >= key.length())
+            return 0;
+        final char c = key.charAt(charIndex);
+        return 1 + ((digit & 1) == 0 ? c >>> 8 : c & 0xff);
+    }
+
+    private static void insertionSort(String[] keys, int[] indices, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final String key = keys[i];
+            final int index = indices[i];
+            int j = i - 1;
+            while (j >= from && keys[j].compareTo(key) > 0) {
+                keys[j + 1] = keys[j];
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            indices[j + 1] = index;
+        }
+    }
+}
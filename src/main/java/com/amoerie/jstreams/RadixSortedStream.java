@@ -0,0 +1,94 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.amoerie.jstreams.functions.IntMapper;
+import com.amoerie.jstreams.functions.LongMapper;
+import com.amoerie.jstreams.functions.Mapper;
+
+class RadixSortedStream<E> extends Stream<E> {
+
+    private final Stream<E> stream;
+    private final IntMapper<E> intMapper;
+    private final LongMapper<E> longMapper;
+    private final Mapper<E, String> stringMapper;
+
+    private RadixSortedStream(Stream<E> stream, IntMapper<E> intMapper, LongMapper<E> longMapper, Mapper<E, String> stringMapper) {
+        this.stream = stream;
+        this.intMapper = intMapper;
+        this.longMapper = longMapper;
+        this.stringMapper = stringMapper;
+    }
+
+    RadixSortedStream(Stream<E> stream, IntMapper<E> intMapper) {
+        this(stream, intMapper, null, null);
+    }
+
+    RadixSortedStream(Stream<E> stream, LongMapper<E> longMapper) {
+        this(stream, null, longMapper, null);
+    }
+
+    RadixSortedStream(Stream<E> stream, Mapper<E, String> stringMapper) {
+        this(stream, null, null, stringMapper);
+    }
+
+    private int[] sortedOrder(List<E> list) {
+        final int size = list.size();
+        if (intMapper != null) {
+            final int[] keys = new int[size];
+            for (int i = 0; i < size; i++)
+                keys[i] = intMapper.map(list.get(i));
+            return RadixSort.sort(keys);
+        }
+        if (longMapper != null) {
+            final long[] keys = new long[size];
+            for (int i = 0; i < size; i++)
+                keys[i] = longMapper.map(list.get(i));
+            return RadixSort.sort(keys);
+        }
+        final String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = stringMapper.map(list.get(i));
+            if (keys[i] == null)
+                throw new IllegalStateException("Unable to sort stream because the mapper returned null for " + list.get(i) + "!");
+        }
+        return RadixSort.sort(keys);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final MemoryAccount account = MemoryAccount.open("sort");
+        final List<E> list;
+        final int[] order;
+        try {
+            list = stream.toList(account);
+            order = sortedOrder(list);
+        } catch (RuntimeException e) {
+            // a sort that is cancelled or fails no longer holds on to its elements
+            account.release();
+            throw e;
+        }
+        final List<E> sortedList = new ArrayList<E>(order.length);
+        for (int index : order)
+            sortedList.add(list.get(index));
+        final Iterator<E> iterator = account.releaseWhenDone(sortedList.iterator());
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
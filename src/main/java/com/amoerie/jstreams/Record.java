@@ -0,0 +1,144 @@
+package com.amoerie.jstreams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a cursor on a fixed-width binary record, reading its fields straight from the underlying (possibly off-heap) buffer.
+ * A record stream reuses one cursor for all of its records, so a record is only valid until the next record is read.
+ * Map the fields you need into your own objects before using a greedy operator such as toList().
+ */
+public final class Record {
+
+    private final int size;
+    private ByteBuffer buffer;
+    private int offset;
+    private long index;
+
+    Record(int size) {
+        this.size = size;
+    }
+
+    void moveTo(ByteBuffer buffer, int offset, long index) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.index = index;
+    }
+
+    private int positionOf(int fieldOffset, int fieldSize) {
+        if (fieldOffset < 0 || fieldOffset + fieldSize > size)
+            throw new IndexOutOfBoundsException("A field of " + fieldSize + " bytes at offset " + fieldOffset + " does not fit in a record of " + size + " bytes");
+        return offset + fieldOffset;
+    }
+
+    /**
+     * Gets the position of this record in the stream
+     *
+     * @return the zero-based index of this record
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the size of this record
+     *
+     * @return the number of bytes in this record
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Reads a byte from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the byte at the given offset
+     */
+    public byte getByte(int fieldOffset) {
+        return buffer.get(positionOf(fieldOffset, 1));
+    }
+
+    /**
+     * Reads a short from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the short at the given offset
+     */
+    public short getShort(int fieldOffset) {
+        return buffer.getShort(positionOf(fieldOffset, 2));
+    }
+
+    /**
+     * Reads a char from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the char at the given offset
+     */
+    public char getChar(int fieldOffset) {
+        return buffer.getChar(positionOf(fieldOffset, 2));
+    }
+
+    /**
+     * Reads an int from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the int at the given offset
+     */
+    public int getInt(int fieldOffset) {
+        return buffer.getInt(positionOf(fieldOffset, 4));
+    }
+
+    /**
+     * Reads a long from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the long at the given offset
+     */
+    public long getLong(int fieldOffset) {
+        return buffer.getLong(positionOf(fieldOffset, 8));
+    }
+
+    /**
+     * Reads a float from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the float at the given offset
+     */
+    public float getFloat(int fieldOffset) {
+        return buffer.getFloat(positionOf(fieldOffset, 4));
+    }
+
+    /**
+     * Reads a double from this record
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @return the double at the given offset
+     */
+    public double getDouble(int fieldOffset) {
+        return buffer.getDouble(positionOf(fieldOffset, 8));
+    }
+
+    /**
+     * Copies a range of bytes from this record onto the heap
+     *
+     * @param fieldOffset the offset of the field, relative to the start of this record
+     * @param length      the number of bytes to copy
+     * @return a new array containing the bytes of the field
+     */
+    public byte[] getBytes(int fieldOffset, int length) {
+        final int position = positionOf(fieldOffset, length);
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = buffer.get(position + i);
+        return bytes;
+    }
+
+    /**
+     * Copies this entire record onto the heap
+     *
+     * @return a new array containing all the bytes of this record
+     */
+    public byte[] toByteArray() {
+        return getBytes(0, size);
+    }
+}
@@ -0,0 +1,83 @@
+package com.amoerie.jstreams;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class RecordStream extends Stream<Record> {
+
+    static final long DEFAULT_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int recordSize;
+    private final ByteOrder byteOrder;
+    private final long regionSize;
+
+    RecordStream(File file, int recordSize, ByteOrder byteOrder, long regionSize) {
+        this.file = file;
+        this.buffer = null;
+        this.recordSize = recordSize;
+        this.byteOrder = byteOrder;
+        // a region always holds a whole number of records
+        this.regionSize = Math.max(1, regionSize / recordSize) * recordSize;
+    }
+
+    RecordStream(ByteBuffer buffer, int recordSize) {
+        this.file = null;
+        this.buffer = buffer;
+        this.recordSize = recordSize;
+        this.byteOrder = buffer.order();
+        this.regionSize = 0;
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        if (file != null && !file.isFile())
+            throw new IllegalStateException("Unable to read records from " + file + " because it is not a readable file!");
+        // records are read relative to the start of a region, trailing bytes that do not form a complete record are ignored
+        final long length = file != null ? file.length() : buffer.remaining();
+        final long numberOfRecords = length / recordSize;
+        return new Iterator<Record>() {
+
+            private final Record record = new Record(recordSize);
+            private ByteBuffer region;
+            private long regionStart;
+            private long index;
+
+            private void mapRegionAt(long position) {
+                if (file != null) {
+                    region = MappedFile.map(file, position, Math.min(regionSize, numberOfRecords * recordSize - position));
+                } else {
+                    region = buffer.slice();
+                }
+                // duplicates and slices do not inherit the byte order
+                region.order(byteOrder);
+                regionStart = position;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < numberOfRecords;
+            }
+
+            @Override
+            public Record next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final long position = index * recordSize;
+                if (region == null || position + recordSize > regionStart + region.limit())
+                    mapRegionAt(position);
+                record.moveTo(region, (int) (position - regionStart), index++);
+                return record;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
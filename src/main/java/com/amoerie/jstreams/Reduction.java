@@ -0,0 +1,45 @@
+package com.amoerie.jstreams;
+
+import com.amoerie.jstreams.functions.Reducer;
+
+/**
+ * Represents one reduction that can be computed together with other reductions in a single traversal of a stream.
+ * See {@link Stream#reduceAll(Reduction[])}.
+ *
+ * @param <E> the type of element that gets put into the reduction
+ * @param <R> the type of the result of the reduction
+ */
+public final class Reduction<E, R> {
+
+    private final Reducer<E, R> reducer;
+    private final R initialValue;
+
+    private Reduction(Reducer<E, R> reducer, R initialValue) {
+        this.reducer = reducer;
+        this.initialValue = initialValue;
+    }
+
+    /**
+     * Creates a new reduction
+     *
+     * @param reducer      the reduction function that turns the current value and the next element into the next value
+     * @param initialValue the initial value to start from. This is also the result when the stream is empty.
+     * @param <E>          the type of element that gets put into the reduction
+     * @param <R>          the type of the result of the reduction
+     * @return a new reduction
+     */
+    public static <E, R> Reduction<E, R> of(final Reducer<E, R> reducer, final R initialValue) {
+        if (reducer == null)
+            throw new IllegalArgumentException("Unable to create a reduction because the reducer is null!");
+        return new Reduction<E, R>(reducer, initialValue);
+    }
+
+    R getInitialValue() {
+        return initialValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    Object reduce(Object value, E e) {
+        return reducer.reduce((R) value, e);
+    }
+}
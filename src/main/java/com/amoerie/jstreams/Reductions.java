@@ -0,0 +1,32 @@
+package com.amoerie.jstreams;
+
+/**
+ * Holds the results of multiple reductions that were computed in a single traversal of a stream.
+ * See {@link Stream#reduceAll(Reduction[])}.
+ */
+public final class Reductions {
+
+    private final Reduction<?, ?>[] reductions;
+    private final Object[] results;
+
+    Reductions(Reduction<?, ?>[] reductions, Object[] results) {
+        this.reductions = reductions;
+        this.results = results;
+    }
+
+    /**
+     * Gets the result of one of the reductions
+     *
+     * @param reduction the reduction, as it was passed to {@link Stream#reduceAll(Reduction[])}
+     * @param <R>       the type of the result of the reduction
+     * @return the final value of the reduction after reducing every element
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(final Reduction<?, R> reduction) {
+        for (int i = 0; i < reductions.length; i++) {
+            if (reductions[i] == reduction)
+                return (R) results[i];
+        }
+        throw new IllegalArgumentException("Unable to get the result of this reduction because it was not part of the traversal!");
+    }
+}
@@ -0,0 +1,152 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import com.amoerie.jstreams.functions.Mapper;
+
+class SampledStream<E> extends Stream<E> {
+
+    private final Stream<E> stream;
+    private final int number;
+    private final Mapper<E, Double> weightMapper;
+    private final Long seed;
+
+    SampledStream(Stream<E> stream, int number, Mapper<E, Double> weightMapper, Long seed) {
+        this.stream = stream;
+        this.number = number;
+        this.weightMapper = weightMapper;
+        this.seed = seed;
+    }
+
+    private static class Sampled<E> {
+        private final E element;
+        // the position in the stream, so the sample can be returned in the order of the stream
+        private final long position;
+        private final double key;
+
+        private Sampled(E element, long position, double key) {
+            this.element = element;
+            this.position = position;
+            this.key = key;
+        }
+    }
+
+    private static final Comparator<Sampled<?>> byPosition = new Comparator<Sampled<?>>() {
+        @Override
+        public int compare(Sampled<?> left, Sampled<?> right) {
+            return left.position < right.position ? -1 : (left.position == right.position ? 0 : 1);
+        }
+    };
+
+    private static final Comparator<Sampled<?>> byKey = new Comparator<Sampled<?>>() {
+        @Override
+        public int compare(Sampled<?> left, Sampled<?> right) {
+            return Double.compare(left.key, right.key);
+        }
+    };
+
+    @Override
+    int characteristics() {
+        // a sample keeps some of the elements in their original order, so it is as sorted and as distinct as this stream
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        if (number == 0)
+            return Stream.<E>empty().iterator();
+        // every iteration starts from the seed again, so iterating twice gives the same sample
+        final Random random = seed == null ? new Random() : new Random(scramble(seed));
+        final List<Sampled<E>> sample = weightMapper == null ? uniformSample(random) : weightedSample(random);
+        Collections.sort(sample, byPosition);
+        final List<E> elements = new ArrayList<E>(sample.size());
+        for (Sampled<E> sampled : sample)
+            elements.add(sampled.element);
+        return Collections.unmodifiableList(elements).iterator();
+    }
+
+    // the first numbers drawn by java.util.Random are nearly the same for seeds that are close together, such as 1, 2 and 3,
+    // so the seed is scrambled first to make samples taken with nearby seeds independent of each other
+    private static long scramble(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // a number in (0, 1], which unlike nextDouble() can never be zero, so its logarithm is always finite
+    private static double nextUniform(Random random) {
+        return 1.0 - random.nextDouble();
+    }
+
+    private List<Sampled<E>> uniformSample(Random random) {
+        // Li's algorithm L: instead of drawing a random number for every element, it draws how many elements to skip before the next replacement,
+        // so only O(k * (1 + log(n / k))) random numbers are needed for n elements
+        final Checkpoint checkpoint = Checkpoint.open();
+        final List<Sampled<E>> reservoir = new ArrayList<Sampled<E>>();
+        final Iterator<E> iterator = stream.iterator();
+        while (reservoir.size() < number && iterator.hasNext()) {
+            checkpoint.tick();
+            reservoir.add(new Sampled<E>(iterator.next(), reservoir.size(), 0));
+        }
+        if (reservoir.size() < number)
+            return reservoir;
+        long position = number;
+        double w = Math.exp(Math.log(nextUniform(random)) / number);
+        long skip = skip(random, w);
+        while (iterator.hasNext()) {
+            checkpoint.tick();
+            final E element = iterator.next();
+            if (skip > 0) {
+                skip--;
+            } else {
+                reservoir.set(random.nextInt(number), new Sampled<E>(element, position, 0));
+                w *= Math.exp(Math.log(nextUniform(random)) / number);
+                skip = skip(random, w);
+            }
+            position++;
+        }
+        return reservoir;
+    }
+
+    private static long skip(Random random, double w) {
+        final double skip = Math.floor(Math.log(nextUniform(random)) / Math.log(1.0 - w));
+        return skip >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) skip;
+    }
+
+    private List<Sampled<E>> weightedSample(Random random) {
+        // Efraimidis and Spirakis' algorithm A-Res: every element gets the key u^(1/weight) for a uniform u, and the sample is made of the largest keys.
+        // The keys are compared by their logarithm, log(u) / weight, which has the same order but does not underflow for large weights.
+        final Checkpoint checkpoint = Checkpoint.open();
+        final PriorityQueue<Sampled<E>> reservoir = new PriorityQueue<Sampled<E>>(Math.min(number, 16), byKey);
+        long position = 0;
+        for (E element : stream) {
+            checkpoint.tick();
+            final Double weight = weightMapper.map(element);
+            if (weight == null || weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight))
+                throw new IllegalStateException("Unable to sample the stream because the weight of " + element + " is " + weight + "!");
+            if (weight > 0) {
+                final double key = Math.log(nextUniform(random)) / weight;
+                if (reservoir.size() < number)
+                    reservoir.add(new Sampled<E>(element, position, key));
+                else if (key > reservoir.peek().key) {
+                    reservoir.poll();
+                    reservoir.add(new Sampled<E>(element, position, key));
+                }
+            }
+            position++;
+        }
+        return new ArrayList<Sampled<E>>(reservoir);
+    }
+}
@@ -0,0 +1,84 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Mapper;
+import com.amoerie.jstreams.functions.Reducer;
+
+class SessionWindowStream<E, R> extends Stream<TimeWindow<R>> {
+
+    private final Stream<E> stream;
+    private final Mapper<E, Long> timestampMapper;
+    private final long gap;
+    private final Reducer<E, R> reducer;
+    private final R initialValue;
+
+    SessionWindowStream(Stream<E> stream, Mapper<E, Long> timestampMapper, long gap, Reducer<E, R> reducer, R initialValue) {
+        this.stream = stream;
+        this.timestampMapper = timestampMapper;
+        this.gap = gap;
+        this.reducer = reducer;
+        this.initialValue = initialValue;
+    }
+
+    @Override
+    public Iterator<TimeWindow<R>> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        return new Iterator<TimeWindow<R>>() {
+
+            private boolean isSessionOpen;
+            private long start;
+            private long last;
+            private long count;
+            private R accumulator;
+            private TimeWindow<R> nextWindow;
+
+            private boolean tryPrepareNextWindow() {
+                while (nextWindow == null && iterator.hasNext()) {
+                    final E e = iterator.next();
+                    final long timestamp = timestampMapper.map(e);
+                    if (isSessionOpen && timestamp < last)
+                        throw new IllegalStateException("Unable to window this stream because it is not ordered by timestamp: " + timestamp + " arrived after " + last + "!");
+                    if (isSessionOpen && timestamp - last >= gap) {
+                        nextWindow = new TimeWindowImpl<R>(start, last + gap, count, accumulator);
+                        isSessionOpen = false;
+                    }
+                    if (!isSessionOpen) {
+                        isSessionOpen = true;
+                        start = timestamp;
+                        count = 0;
+                        accumulator = initialValue;
+                    }
+                    last = timestamp;
+                    accumulator = reducer.reduce(accumulator, e);
+                    count++;
+                }
+                if (nextWindow == null && isSessionOpen) {
+                    nextWindow = new TimeWindowImpl<R>(start, last + gap, count, accumulator);
+                    isSessionOpen = false;
+                }
+                return nextWindow != null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextWindow();
+            }
+
+            @Override
+            public TimeWindow<R> next() {
+                if (!tryPrepareNextWindow())
+                    throw new NoSuchElementException();
+                final TimeWindow<R> window = nextWindow;
+                nextWindow = null;
+                return window;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
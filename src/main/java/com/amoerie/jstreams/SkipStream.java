@@ -1,5 +1,6 @@
 package com.amoerie.jstreams;
 
+import java.util.Comparator;
 import java.util.Iterator;
 
 class SkipStream<E> extends Stream<E> {
@@ -12,6 +13,16 @@ class SkipStream<E> extends Stream<E> {
         this.number = number;
     }
 
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
     @Override
     public Iterator<E> iterator() {
         final Iterator<E> iterator = this.stream.iterator();
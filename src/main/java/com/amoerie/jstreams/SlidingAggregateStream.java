@@ -0,0 +1,74 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Reducer;
+
+class SlidingAggregateStream<E, R> extends Stream<R> {
+
+    private final Stream<E> stream;
+    private final int windowSize;
+    private final Reducer<E, R> adder;
+    private final Reducer<E, R> evictor;
+    private final R initialValue;
+
+    SlidingAggregateStream(Stream<E> stream, int windowSize, Reducer<E, R> adder, Reducer<E, R> evictor, R initialValue) {
+        this.stream = stream;
+        this.windowSize = windowSize;
+        this.adder = adder;
+        this.evictor = evictor;
+        this.initialValue = initialValue;
+    }
+
+    @Override
+    public Iterator<R> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        final Object[] ring = new Object[windowSize];
+        return new Iterator<R>() {
+
+            private R accumulator = initialValue;
+            private int oldest;
+            private long read;
+            private boolean isFirstWindow = true;
+
+            @SuppressWarnings("unchecked")
+            private void slide() {
+                final E e = iterator.next();
+                if (read >= windowSize)
+                    accumulator = evictor.reduce(accumulator, (E) ring[oldest]);
+                accumulator = adder.reduce(accumulator, e);
+                ring[oldest] = e;
+                oldest = (oldest + 1) % windowSize;
+                read++;
+            }
+
+            private boolean tryFillFirstWindow() {
+                while (isFirstWindow && read < windowSize && iterator.hasNext())
+                    slide();
+                return read >= windowSize;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryFillFirstWindow() && (isFirstWindow || iterator.hasNext());
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                if (isFirstWindow)
+                    isFirstWindow = false;
+                else
+                    slide();
+                return accumulator;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.amoerie.jstreams;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class SlidingStream<E> extends Stream<List<E>> {
+
+    private final Stream<E> stream;
+    private final int windowSize;
+    private final int step;
+
+    SlidingStream(Stream<E> stream, int windowSize, int step) {
+        this.stream = stream;
+        this.windowSize = windowSize;
+        this.step = step;
+    }
+
+    @Override
+    public Iterator<List<E>> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        final Object[] ring = new Object[windowSize];
+        return new Iterator<List<E>>() {
+
+            // the index of the oldest element in the ring, which is also where the next element will be written
+            private int oldest;
+            private boolean isFirstWindow = true;
+            private boolean isNextWindowReady;
+
+            private final List<E> window = new AbstractList<E>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public E get(int index) {
+                    if (index < 0 || index >= windowSize)
+                        throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a window of size " + windowSize);
+                    return (E) ring[(oldest + index) % windowSize];
+                }
+
+                @Override
+                public int size() {
+                    return windowSize;
+                }
+            };
+
+            private boolean tryPrepareNextWindow() {
+                if (isNextWindowReady)
+                    return true;
+                final int needed = isFirstWindow ? windowSize : step;
+                int read = 0;
+                while (read < needed && iterator.hasNext()) {
+                    ring[oldest] = iterator.next();
+                    oldest = (oldest + 1) % windowSize;
+                    read++;
+                }
+                if (read < needed)
+                    return false;
+                isFirstWindow = false;
+                return isNextWindowReady = true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextWindow();
+            }
+
+            @Override
+            public List<E> next() {
+                if (!tryPrepareNextWindow())
+                    throw new NoSuchElementException();
+                isNextWindowReady = false;
+                return window;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
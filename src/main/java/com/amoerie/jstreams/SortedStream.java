@@ -1,25 +1,182 @@
 package com.amoerie.jstreams;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
-class SortedStream<E> extends Stream<E> {
+import com.amoerie.jstreams.functions.Mapper;
+
+class SortedStream<E> extends OrderedStream<E> {
 
     private final Stream<E> stream;
-    private final Comparator<E> comparator;
+    private final List<SortKey<E>> sortKeys;
+    private final int threads;
 
     public SortedStream(Stream<E> stream, Comparator<E> comparator) {
+        this(stream, Collections.singletonList(new SortKey<E>(comparator, null, false)), 1);
+    }
+
+    public SortedStream(Stream<E> stream, Mapper<E, ? extends Comparable<?>> mapper, boolean isDescending) {
+        this(stream, Collections.singletonList(new SortKey<E>(null, mapper, isDescending)), 1);
+    }
+
+    private SortedStream(Stream<E> stream, List<SortKey<E>> sortKeys, int threads) {
         this.stream = stream;
-        this.comparator = comparator;
+        this.sortKeys = sortKeys;
+        this.threads = threads;
+    }
+
+    private static class SortKey<E> {
+        private final Comparator<E> comparator;
+        private final Mapper<E, ? extends Comparable<?>> mapper;
+        private final boolean isDescending;
+
+        private SortKey(Comparator<E> comparator, Mapper<E, ? extends Comparable<?>> mapper, boolean isDescending) {
+            this.comparator = comparator;
+            this.mapper = mapper;
+            this.isDescending = isDescending;
+        }
+    }
+
+    private static class Entry<E> {
+        private final E element;
+        private final Object[] keys;
+
+        private Entry(E element, Object[] keys) {
+            this.element = element;
+            this.keys = keys;
+        }
+    }
+
+    private SortedStream<E> then(SortKey<E> sortKey) {
+        final List<SortKey<E>> thenSortKeys = new ArrayList<SortKey<E>>(sortKeys);
+        thenSortKeys.add(sortKey);
+        return new SortedStream<E>(stream, thenSortKeys, threads);
+    }
+
+    @Override
+    public OrderedStream<E> parallel() {
+        return parallel(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public OrderedStream<E> parallel(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Unable to sort stream in parallel because the number of threads is less than one!");
+        return new SortedStream<E>(stream, sortKeys, threads);
+    }
+
+    @Override
+    public <T extends Comparable<T>> OrderedStream<E> thenBy(Mapper<E, T> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return then(new SortKey<E>(null, mapper, false));
+    }
+
+    @Override
+    public <T extends Comparable<T>> OrderedStream<E> thenByDescending(Mapper<E, T> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return then(new SortKey<E>(null, mapper, true));
+    }
+
+    private void sortByComparator(List<E> list, Comparator<E> comparator) {
+        if (threads == 1) {
+            Collections.sort(list, comparator);
+            return;
+        }
+        // the array only ever holds elements of the list, so it can be used as an E[]
+        @SuppressWarnings("unchecked")
+        final E[] elements = (E[]) list.toArray();
+        ParallelSort.sort(elements, comparator, threads);
+        for (int i = 0; i < elements.length; i++)
+            list.set(i, elements[i]);
+    }
+
+    // every key comes from a mapper to a Comparable of its own type, so two keys of the same sort key can always be compared
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private void sortByKeys(List<E> list) {
+        // decorate every element with its keys, so each key is computed once instead of twice per comparison
+        final int numberOfKeys = sortKeys.size();
+        final Checkpoint checkpoint = Checkpoint.open();
+        // generic arrays cannot be created directly, but this one only ever holds entries of this stream
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Entry<E>[] entries = new Entry[list.size()];
+        for (int i = 0; i < entries.length; i++) {
+            checkpoint.tick();
+            final E element = list.get(i);
+            final Object[] keys = new Object[numberOfKeys];
+            for (int k = 0; k < numberOfKeys; k++) {
+                final Mapper<E, ? extends Comparable<?>> mapper = sortKeys.get(k).mapper;
+                if (mapper != null)
+                    keys[k] = mapper.map(element);
+            }
+            entries[i] = new Entry<E>(element, keys);
+        }
+        // the sort is stable, so equal elements keep their original order
+        ParallelSort.sort(entries, new Comparator<Entry<E>>() {
+            @Override
+            public int compare(Entry<E> left, Entry<E> right) {
+                for (int k = 0; k < numberOfKeys; k++) {
+                    final SortKey<E> sortKey = sortKeys.get(k);
+                    // a descending key compares the entries the other way around, because negating the result is wrong for Integer.MIN_VALUE
+                    final Entry<E> first = sortKey.isDescending ? right : left;
+                    final Entry<E> second = sortKey.isDescending ? left : right;
+                    final int comparison = sortKey.comparator != null
+                            ? sortKey.comparator.compare(first.element, second.element)
+                            : compareKeys(first.keys[k], second.keys[k]);
+                    if (comparison != 0)
+                        return comparison;
+                }
+                return 0;
+            }
+        }, threads);
+        for (int i = 0; i < entries.length; i++)
+            list.set(i, entries[i].element);
+    }
+
+    private boolean isSortedByComparator() {
+        return sortKeys.size() == 1 && sortKeys.get(0).comparator != null;
+    }
+
+    @Override
+    int characteristics() {
+        // sorting keeps the elements themselves, so only the order changes
+        final int retained = stream.characteristics() & (DISTINCT | NONNULL);
+        return isSortedByComparator() ? SORTED | retained : retained;
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return isSortedByComparator() ? sortKeys.get(0).comparator : null;
     }
 
     @Override
     public Iterator<E> iterator() {
-        final List<E> list = stream.toList();
-        Collections.sort(list, comparator);
-        final Iterator<E> iterator = list.iterator();
+        // a stream that is already sorted by the same comparator does not need to be copied or sorted again
+        if (isSortedByComparator() && stream.hasCharacteristics(SORTED) && sortKeys.get(0).comparator.equals(stream.comparator()))
+            return stream.iterator();
+        final MemoryAccount account = MemoryAccount.open("sort");
+        final List<E> list;
+        try {
+            list = stream.toList(account);
+            final SortKey<E> firstSortKey = sortKeys.get(0);
+            if (sortKeys.size() == 1 && firstSortKey.comparator != null)
+                sortByComparator(list, firstSortKey.comparator);
+            else
+                sortByKeys(list);
+        } catch (RuntimeException e) {
+            // a sort that is cancelled or fails no longer holds on to its elements
+            account.release();
+            throw e;
+        }
+        final Iterator<E> iterator = account.releaseWhenDone(list.iterator());
         return new Iterator<E>() {
             @Override
             public boolean hasNext() {
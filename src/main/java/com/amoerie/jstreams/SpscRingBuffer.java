@@ -0,0 +1,64 @@
+package com.amoerie.jstreams;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// a bounded queue for exactly one producer thread and one consumer thread, without locks:
+// each side only writes its own index, and publishes it with a lazySet after writing or clearing the slot
+class SpscRingBuffer {
+    private final Object[] slots;
+    private final int mask;
+    // the next slot to poll, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // the next slot to offer, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // the last index seen of the other side, so the shared counter is only read when the cached one says full or empty
+    private long cachedHead;
+    private long cachedTail;
+
+    SpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    // producer side, the item must not be null
+    boolean offer(Object item) {
+        final long currentTail = tail.get();
+        if (currentTail - cachedHead == slots.length) {
+            cachedHead = head.get();
+            if (currentTail - cachedHead == slots.length)
+                return false;
+        }
+        slots[(int) currentTail & mask] = item;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    // consumer side, returns null when the buffer is empty
+    Object poll() {
+        final long currentHead = head.get();
+        if (currentHead == cachedTail) {
+            cachedTail = tail.get();
+            if (currentHead == cachedTail)
+                return null;
+        }
+        final int slot = (int) currentHead & mask;
+        final Object item = slots[slot];
+        slots[slot] = null;
+        head.lazySet(currentHead + 1);
+        return item;
+    }
+
+    // spins first, because the other side is usually only a moment away, then yields and finally parks
+    static void idle(int attempt) {
+        if (attempt < 100)
+            return;
+        if (attempt < 200)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(50000L);
+    }
+}
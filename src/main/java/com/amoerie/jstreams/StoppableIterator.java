@@ -0,0 +1,16 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+
+// an iterator that holds on to something while it is being iterated, such as a thread that reads ahead,
+// which is let go of when its consumer stops before the end
+abstract class StoppableIterator<E> implements Iterator<E> {
+
+    abstract void stop();
+
+    // operators that stop early, such as take and first, stop their source, and operators in between pass it on to their own source
+    static void stopEarly(Iterator<?> iterator) {
+        if (iterator instanceof StoppableIterator)
+            ((StoppableIterator<?>) iterator).stop();
+    }
+}
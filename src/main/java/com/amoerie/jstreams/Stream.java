@@ -1,5 +1,14 @@
 package com.amoerie.jstreams;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -12,8 +21,12 @@ import java.util.Set;
 
 import com.amoerie.jstreams.functions.Consumer;
 import com.amoerie.jstreams.functions.Filter;
+import com.amoerie.jstreams.functions.IntMapper;
+import com.amoerie.jstreams.functions.LongMapper;
 import com.amoerie.jstreams.functions.Mapper;
 import com.amoerie.jstreams.functions.Reducer;
+import com.amoerie.jstreams.functions.ShortCircuitingReducer;
+import com.amoerie.jstreams.reactive.Publisher;
 
 /**
  * Represents a collection of elements that are not known at construction time
@@ -27,8 +40,60 @@ public abstract class Stream<E> implements Iterable<E> {
     protected Stream() {
     }
 
+    /* characteristics */
+
+    // the elements are in the order of comparator(), or in their natural order when that is null
+    static final int SORTED = 1;
+    // no two elements are equal
+    static final int DISTINCT = 2;
+    // no element is null
+    static final int NONNULL = 4;
+
+    // what operators may assume about the elements of this stream, so they can skip work that would not change the result
+    // a stream only reports what holds for every iteration, so the default is to report nothing
+    int characteristics() {
+        return 0;
+    }
+
+    Comparator<? super E> comparator() {
+        return null;
+    }
+
+    final boolean hasCharacteristics(int characteristics) {
+        return (characteristics() & characteristics) == characteristics;
+    }
+
     /* static methods (alphabetically) */
 
+    /**
+     * Concatenates multiple streams into one stream. See {@link #concat(Iterable)}.
+     *
+     * @param streams the streams to concatenate
+     * @param <E>     the type of the elements
+     * @return a new stream containing all the elements of all the streams, in order
+     */
+    public static <E> Stream<E> concat(final Stream<E>... streams) {
+        if (streams == null)
+            throw new IllegalArgumentException("Unable to concatenate the streams because the array of streams is null!");
+        return concat(Arrays.asList(streams));
+    }
+
+    /**
+     * Concatenates multiple streams into one stream.
+     * Streams that are themselves concatenations are flattened into a single level, so the cost per element does not grow
+     * with the number of streams, not even when a stream is built by calling {@link #concat(Stream)} in a loop.
+     * This is a lazy operation, it does not consume the iterable until a greedy operation is called, such as toList()
+     *
+     * @param streams the streams to concatenate
+     * @param <E>     the type of the elements
+     * @return a new stream containing all the elements of all the streams, in order
+     */
+    public static <E> Stream<E> concat(final Iterable<Stream<E>> streams) {
+        if (streams == null)
+            throw new IllegalArgumentException("Unable to concatenate the streams because the iterable of streams is null!");
+        return new FlatStream<E>(streams);
+    }
+
     /**
      * Creates a new stream from the provided array of elements
      *
@@ -66,6 +131,127 @@ public abstract class Stream<E> implements Iterable<E> {
         return new EmptyStream<E>();
     }
 
+    /**
+     * Creates a new stream from the elements of a publisher, prefetching up to 128 elements.
+     * See {@link #fromPublisher(Publisher, int)}.
+     *
+     * @param publisher the publisher to subscribe to
+     * @param <E>       the type of the elements
+     * @return a new stream containing the elements of the publisher
+     */
+    public static <E> Stream<E> fromPublisher(final Publisher<E> publisher) {
+        return fromPublisher(publisher, 128);
+    }
+
+    /**
+     * Creates a new stream from the elements of a publisher.
+     * Every iteration subscribes to the publisher and immediately requests the prefetched number of elements, which are buffered until they are iterated over.
+     * Each time half of the buffer has been iterated over, that many elements are requested again, so the publisher can work ahead in batches
+     * but never gets more than the buffer size ahead of the iteration. Iterating blocks until the publisher has published the next element.
+     * A failure of the publisher is thrown when it is reached in the iteration.
+     * An iteration that stops before the end, such as first() or take(), only cancels its subscription when it runs inside {@link ExecutionContext#run(java.util.concurrent.Callable)},
+     * once the task returns. Outside of an execution context, the subscription stays open until the publisher completes.
+     *
+     * @param publisher the publisher to subscribe to
+     * @param prefetch  the maximum number of elements to buffer
+     * @param <E>       the type of the elements
+     * @return a new stream containing the elements of the publisher
+     */
+    public static <E> Stream<E> fromPublisher(final Publisher<E> publisher, final int prefetch) {
+        if (publisher == null)
+            throw new IllegalArgumentException("Unable to create a stream from the publisher because the publisher is null!");
+        if (prefetch < 1)
+            throw new IllegalArgumentException("Unable to create a stream from the publisher because the prefetch is less than one!");
+        return new PublisherStream<E>(publisher, prefetch);
+    }
+
+    /**
+     * Creates a new stream containing the lines of the provided file, decoded as UTF-8.
+     * See {@link #lines(File, Charset)}.
+     *
+     * @param file the file to read
+     * @return a new stream containing a lightweight view on each line of the file
+     */
+    public static Stream<CharSequence> lines(final File file) {
+        return lines(file, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Creates a new stream containing the lines of the provided file.
+     * The file is memory mapped one region at a time, so files larger than 2GB are supported, and the lines are never copied onto the heap.
+     * Each line is a lightweight view on the mapped bytes: lines that consist of ASCII characters are read as chars without being decoded,
+     * and other lines are decoded with the provided charset the first time they are read. The line separator ('\n' or "\r\n") is not included.
+     * Only US-ASCII, UTF-8, the ISO-8859 charsets and the windows-125x charsets are memory mapped this way. The lines of other charsets, such as UTF-16 or ISO-2022-JP, are decoded while the file is read.
+     * This is a lazy operation, the file is not opened until a greedy operation is called, such as toList()
+     *
+     * @param file    the file to read
+     * @param charset the charset that is used to turn a line into a String
+     * @return a new stream containing a lightweight view on each line of the file
+     */
+    public static Stream<CharSequence> lines(final File file, final Charset charset) {
+        if (file == null)
+            throw new IllegalArgumentException("Unable to read lines because the file is null!");
+        if (charset == null)
+            throw new IllegalArgumentException("Unable to read lines because the charset is null!");
+        if (!MappedLinesStream.isAsciiCompatible(charset))
+            return new DecodedLinesStream(file, charset);
+        return new MappedLinesStream(file, charset, 0, -1, MappedLinesStream.DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Splits the provided file into chunks of roughly equal size, each chunk starting and ending at a line boundary.
+     * Every chunk is a stream of lines as described in {@link #lines(File, Charset)}, so the chunks can be consumed independently, for example by separate threads.
+     *
+     * @param file           the file to read
+     * @param charset        the charset that is used to turn a line into a String
+     * @param numberOfChunks the maximum number of chunks, fewer chunks are returned when the file is too small.
+     *                       Files in a charset that is not memory mapped, such as UTF-16 or ISO-2022-JP, are returned as one chunk.
+     * @return a new stream containing the chunks of the file, which together contain every line of the file exactly once
+     */
+    public static Stream<Stream<CharSequence>> linesInChunks(final File file, final Charset charset, final int numberOfChunks) {
+        if (file == null)
+            throw new IllegalArgumentException("Unable to read lines because the file is null!");
+        if (charset == null)
+            throw new IllegalArgumentException("Unable to read lines because the charset is null!");
+        if (numberOfChunks <= 0)
+            throw new IllegalArgumentException("Unable to split the lines into chunks because the number of chunks is not positive!");
+        if (!MappedLinesStream.isAsciiCompatible(charset))
+            return Stream.<Stream<CharSequence>>singleton(new DecodedLinesStream(file, charset));
+        return new MappedLineChunksStream(file, charset, numberOfChunks, MappedLinesStream.DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Merges multiple streams that are each already sorted into one sorted stream. See {@link #mergeSorted(Comparator, Iterable)}.
+     *
+     * @param comparator the comparator by which every stream is sorted
+     * @param streams    the sorted streams to merge
+     * @param <E>        the type of the elements
+     * @return a new stream containing all elements of all streams, sorted by the comparator
+     */
+    public static <E> Stream<E> mergeSorted(final Comparator<E> comparator, final Stream<E>... streams) {
+        if (streams == null)
+            throw new IllegalArgumentException("Unable to merge the streams because the array of streams is null!");
+        return mergeSorted(comparator, Arrays.asList(streams));
+    }
+
+    /**
+     * Merges multiple streams that are each already sorted into one sorted stream.
+     * This is a lazy operation that only holds the next element of every stream, so merging n elements from k streams takes O(n log k) time and O(k) memory.
+     * Elements that are equal according to the comparator are returned in the order of their streams.
+     *
+     * @param comparator the comparator by which every stream is sorted
+     * @param streams    the sorted streams to merge
+     * @param <E>        the type of the elements
+     * @return a new stream containing all elements of all streams, sorted by the comparator
+     */
+    public static <E> Stream<E> mergeSorted(final Comparator<E> comparator, final Iterable<Stream<E>> streams) {
+        if (comparator == null)
+            throw new IllegalArgumentException("Unable to merge the streams because the comparator is null!");
+        if (streams == null)
+            throw new IllegalArgumentException("Unable to merge the streams because the iterable of streams is null!");
+        return new MergeSortedStream<E>(comparator, streams);
+    }
+
     /**
      * Alias for {@link #create(Object[])}
      *
@@ -88,6 +274,58 @@ public abstract class Stream<E> implements Iterable<E> {
         return create(elements);
     }
 
+    /**
+     * Creates a new stream of fixed-width records, read from the remaining bytes of the provided buffer.
+     * The stream yields the same {@link Record} cursor for every record, so filters and mappers read the fields straight from the buffer
+     * without allocating anything. Map each record into your own object before using a greedy operator such as toList().
+     * Trailing bytes that do not form a complete record are ignored.
+     *
+     * @param buffer     the buffer containing the records, which can be a direct buffer. Its byte order is used to read the fields.
+     * @param recordSize the number of bytes in one record
+     * @return a new stream containing a cursor on each record of the buffer
+     */
+    public static Stream<Record> records(final ByteBuffer buffer, final int recordSize) {
+        if (buffer == null)
+            throw new IllegalArgumentException("Unable to read records because the buffer is null!");
+        if (recordSize <= 0)
+            throw new IllegalArgumentException("Unable to read records because the record size is not positive!");
+        return new RecordStream(buffer, recordSize);
+    }
+
+    /**
+     * Creates a new stream of fixed-width, big-endian records, read from the provided file.
+     * See {@link #records(File, int, ByteOrder)}.
+     *
+     * @param file       the file containing the records
+     * @param recordSize the number of bytes in one record
+     * @return a new stream containing a cursor on each record of the file
+     */
+    public static Stream<Record> records(final File file, final int recordSize) {
+        return records(file, recordSize, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Creates a new stream of fixed-width records, read from the provided file.
+     * The file is memory mapped one region at a time, so files larger than 2GB are supported.
+     * The stream yields the same {@link Record} cursor for every record, so filters and mappers read the fields straight from the mapped memory
+     * without allocating anything. Map each record into your own object before using a greedy operator such as toList().
+     * Trailing bytes that do not form a complete record are ignored.
+     *
+     * @param file       the file containing the records
+     * @param recordSize the number of bytes in one record
+     * @param byteOrder  the byte order used to read the fields
+     * @return a new stream containing a cursor on each record of the file
+     */
+    public static Stream<Record> records(final File file, final int recordSize, final ByteOrder byteOrder) {
+        if (file == null)
+            throw new IllegalArgumentException("Unable to read records because the file is null!");
+        if (recordSize <= 0)
+            throw new IllegalArgumentException("Unable to read records because the record size is not positive!");
+        if (byteOrder == null)
+            throw new IllegalArgumentException("Unable to read records because the byte order is null!");
+        return new RecordStream(file, recordSize, byteOrder, RecordStream.DEFAULT_REGION_SIZE);
+    }
+
     /**
      * Creates a new singleton stream, containing exactly one element
      *
@@ -101,6 +339,29 @@ public abstract class Stream<E> implements Iterable<E> {
 
     /* Instance methods (alphabetically) */
 
+    /**
+     * Determines whether all of the elements in this stream satisfy the given predicate.
+     * The stream is only consumed up to the first element that does not satisfy it.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return true if every element satisfied the predicate or the stream is empty, false otherwise
+     */
+    public boolean all(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to determine if all elements satisfy this filter because the filter is null!");
+        return reduce(new ShortCircuitingReducer<E, Boolean>() {
+            @Override
+            public Boolean reduce(Boolean isSatisfied, E e) {
+                return filter.apply(e);
+            }
+
+            @Override
+            public boolean isDone(Boolean isSatisfied) {
+                return !isSatisfied;
+            }
+        }, true);
+    }
+
     /**
      * Alias for {@link #some(Filter)}
      *
@@ -111,6 +372,41 @@ public abstract class Stream<E> implements Iterable<E> {
         return some(filter);
     }
 
+    /**
+     * Broadcasts this stream to multiple consumers using a buffer of 1024 elements per consumer.
+     * See {@link #broadcast(int, Consumer[])}.
+     *
+     * @param consumers the consumers that each receive a stream containing all the elements of this stream
+     */
+    public void broadcast(final Consumer<Stream<E>>... consumers) {
+        broadcast(1024, consumers);
+    }
+
+    /**
+     * Broadcasts this stream to multiple consumers while traversing it only once.
+     * Every consumer runs on its own thread and receives a stream containing all the elements of this stream, on which it can build its own pipeline,
+     * for example with filter or map, before using a greedy operator such as forEach. Each of these streams can only be iterated once.
+     * Elements are handed to every consumer through a bounded buffer, so a slow consumer only stalls the others once its buffer is full.
+     * A consumer that stops iterating early, for example because of a take, does not hold back the others.
+     * This method returns when every consumer has returned. This stream is only read for as long as at least one consumer is still iterating,
+     * so consumers that all stop early do not cause an infinite stream to be read forever.
+     * When a consumer throws an exception, this stream is no longer read, the other consumers are interrupted and the exception is rethrown.
+     *
+     * @param bufferSize the maximum number of elements that can be waiting for a single consumer
+     * @param consumers  the consumers that each receive a stream containing all the elements of this stream
+     */
+    public void broadcast(final int bufferSize, final Consumer<Stream<E>>... consumers) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Unable to broadcast this stream because the buffer size is not positive!");
+        if (consumers == null)
+            throw new IllegalArgumentException("Unable to broadcast this stream because the array of consumers is null!");
+        for (Consumer<Stream<E>> consumer : consumers) {
+            if (consumer == null)
+                throw new IllegalArgumentException("Unable to broadcast this stream because one of the consumers is null!");
+        }
+        new Broadcaster<E>(this, consumers, bufferSize).run();
+    }
+
     /**
      * Casts every element of this stream to another class
      *
@@ -130,9 +426,30 @@ public abstract class Stream<E> implements Iterable<E> {
      * @param other the other stream to concatenate with
      * @return a new stream containing all the elements of this stream and the other stream
      */
-    @SuppressWarnings("unchecked")
     public Stream<E> concat(final Stream<E> other) {
-        return new FlatStream<E>(create(Stream.this, other));
+        if (other == null)
+            throw new IllegalArgumentException("Unable to concatenate this stream because the other stream is null!");
+        final List<Stream<E>> streams = new ArrayList<Stream<E>>(2);
+        streams.add(this);
+        streams.add(other);
+        return new FlatStream<E>(streams);
+    }
+
+    /**
+     * Counts the elements in this stream that satisfy the given predicate
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return the number of elements that satisfied the predicate
+     */
+    public int count(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to count the elements because the filter is null!");
+        return reduce(new Reducer<E, Integer>() {
+            @Override
+            public Integer reduce(Integer count, E e) {
+                return filter.apply(e) ? count + 1 : count;
+            }
+        }, 0);
     }
 
     /**
@@ -153,6 +470,19 @@ public abstract class Stream<E> implements Iterable<E> {
         return new DistinctStream<E>(this);
     }
 
+    /**
+     * Skips the elements of this stream as long as they satisfy the given predicate.
+     * Starting from the first element that does not satisfy it, all remaining elements are passed through, whether they satisfy it or not.
+     *
+     * @param filter the filter that returns true for the elements that should be skipped
+     * @return a new stream containing the elements of this stream starting from the first one that did not satisfy the predicate
+     */
+    public Stream<E> dropWhile(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to drop elements from this stream because the filter is null!");
+        return new DropWhileStream<E>(this, filter);
+    }
+
     /**
      * Filters the elements of this stream with the given filter.
      *
@@ -162,7 +492,34 @@ public abstract class Stream<E> implements Iterable<E> {
     public Stream<E> filter(final Filter<E> filter) {
         if (filter == null)
             throw new IllegalArgumentException("Unable to filter this stream because the filter is null!");
-        return new FilteredStream<E>(this, filter);
+        return FusedStream.filter(this, filter);
+    }
+
+    /**
+     * Gets the first element of this stream that satisfies the given predicate.
+     * The stream is only consumed up to that element.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return the first element that satisfied the predicate or null if there is none
+     */
+    public E findFirst(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to find an element because the filter is null!");
+        // a list rather than the element itself, so a null element that satisfies the filter also ends the search
+        final List<E> found = reduce(new ShortCircuitingReducer<E, List<E>>() {
+            @Override
+            public List<E> reduce(List<E> found, E e) {
+                if (filter.apply(e))
+                    found.add(e);
+                return found;
+            }
+
+            @Override
+            public boolean isDone(List<E> found) {
+                return !found.isEmpty();
+            }
+        }, new ArrayList<E>(1));
+        return found.isEmpty() ? null : found.get(0);
     }
 
     /**
@@ -172,7 +529,11 @@ public abstract class Stream<E> implements Iterable<E> {
      */
     public E first() {
         final Iterator<E> iterator = iterator();
-        return iterator.hasNext() ? iterator.next() : null;
+        if (!iterator.hasNext())
+            return null;
+        final E first = iterator.next();
+        StoppableIterator.stopEarly(iterator);
+        return first;
     }
 
     /**
@@ -183,7 +544,9 @@ public abstract class Stream<E> implements Iterable<E> {
     public void forEach(final Consumer<E> consumer) {
         if (consumer == null)
             throw new IllegalArgumentException("Unable to apply forEach because the consumer is null!");
+        final Checkpoint checkpoint = Checkpoint.open();
         for (E e : this) {
+            checkpoint.tick();
             consumer.consume(e);
         }
     }
@@ -198,7 +561,7 @@ public abstract class Stream<E> implements Iterable<E> {
     public <R> Stream<R> flatMap(final Mapper<E, Stream<R>> mapper) {
         if (mapper == null)
             throw new IllegalArgumentException("Unable to flatMap this stream because the mapper is null!");
-        return new FlatStream<R>(new MappedStream<E, Stream<R>>(this, mapper));
+        return new FlatStream<R>(FusedStream.map(this, mapper));
     }
 
     /**
@@ -214,6 +577,53 @@ public abstract class Stream<E> implements Iterable<E> {
         return new GroupedStream<K, E>(this, keyMapper);
     }
 
+    /**
+     * Groups this stream into chunks based on the key per element, keeping only the first elements of each group according to the comparator.
+     * For example, with a comparator that puts the most recent events first, this gives the latest n events per key.
+     * While iterating, each key keeps a heap of at most n elements, so the memory used grows with the number of keys times n,
+     * instead of with the number of elements. The elements of each group are sorted by the comparator, and equal elements keep their original order.
+     *
+     * @param keyMapper  a function that returns the grouping key for a given element
+     * @param comparator the comparator that puts the elements to keep first
+     * @param number     the maximum number of elements to keep per group
+     * @param <K>        the type of the key
+     * @return a stream containing groups as its elements
+     */
+    public <K> Stream<Group<K, E>> groupBy(final Mapper<E, K> keyMapper, final Comparator<E> comparator, final int number) {
+        if (keyMapper == null)
+            throw new IllegalArgumentException("Unable to group this stream because the keyMapper is null!");
+        if (comparator == null)
+            throw new IllegalArgumentException("Unable to group this stream because the comparator is null!");
+        if (number < 1)
+            throw new IllegalArgumentException("Unable to group this stream because the number of elements per group is less than one!");
+        return new TopGroupedStream<K, E>(this, keyMapper, comparator, number);
+    }
+
+    /**
+     * Gets the position of the first element of this stream that satisfies the given predicate.
+     * The stream is only consumed up to that element.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return the zero based index of the first element that satisfied the predicate or -1 if there is none
+     */
+    public int indexOf(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to find an element because the filter is null!");
+        // while searching, the value is minus one minus the number of elements seen so far, once found it is the index itself
+        final int index = reduce(new ShortCircuitingReducer<E, Integer>() {
+            @Override
+            public Integer reduce(Integer index, E e) {
+                return filter.apply(e) ? -index - 1 : index - 1;
+            }
+
+            @Override
+            public boolean isDone(Integer index) {
+                return index >= 0;
+            }
+        }, -1);
+        return index >= 0 ? index : -1;
+    }
+
     /**
      * Joins the stream using the given delimiter
      *
@@ -233,6 +643,68 @@ public abstract class Stream<E> implements Iterable<E> {
         }, new StringBuilder()).toString();
     }
 
+    /**
+     * Joins the stream into the provided appendable using the given delimiter.
+     * Unlike {@link #join(String)}, the result is never built up in memory, so this can be used to stream large exports to a {@link Writer}.
+     *
+     * @param appendable the appendable to write the joined elements to
+     * @param delimiter  the delimiter to be inserted between each element
+     * @param <A>        the type of the appendable
+     * @return the provided appendable
+     * @throws IOException if the appendable fails to append
+     */
+    public <A extends Appendable> A joinTo(final A appendable, final String delimiter) throws IOException {
+        return joinTo(appendable, delimiter, "", "");
+    }
+
+    /**
+     * Joins the stream into the provided appendable using the given delimiter, prefix and suffix.
+     * Elements that are already a {@link CharSequence} are appended as is, other elements are turned into a String first.
+     * Unlike {@link #join(String)}, the result is never built up in memory, so this can be used to stream large exports to a {@link Writer}.
+     *
+     * @param appendable the appendable to write the joined elements to
+     * @param delimiter  the delimiter to be inserted between each element
+     * @param prefix     the text to write before the first element
+     * @param suffix     the text to write after the last element
+     * @param <A>        the type of the appendable
+     * @return the provided appendable
+     * @throws IOException if the appendable fails to append
+     */
+    public <A extends Appendable> A joinTo(final A appendable, final String delimiter, final String prefix, final String suffix) throws IOException {
+        if (appendable == null)
+            throw new IllegalArgumentException("Unable to join this stream because the provided appendable is null");
+        if (delimiter == null)
+            throw new IllegalArgumentException("Unable to join this stream because the provided delimiter is null");
+        if (prefix == null || suffix == null)
+            throw new IllegalArgumentException("Unable to join this stream because the provided prefix or suffix is null");
+        // appending many small pieces one by one is slow for writers and output streams, so they are gathered in a buffer first
+        // and handed over in large blocks, unless the appendable is already an in-memory buffer
+        final boolean isBuffer = appendable instanceof StringBuilder || appendable instanceof StringBuffer;
+        final int flushThreshold = 8192;
+        final StringBuilder buffer = isBuffer ? null : new StringBuilder(flushThreshold * 2);
+        final Appendable target = isBuffer ? appendable : buffer;
+        target.append(prefix);
+        boolean isFirstElement = true;
+        for (E e : this) {
+            if (isFirstElement)
+                isFirstElement = false;
+            else
+                target.append(delimiter);
+            if (e instanceof CharSequence)
+                target.append((CharSequence) e);
+            else
+                target.append(String.valueOf(e));
+            if (buffer != null && buffer.length() >= flushThreshold) {
+                appendable.append(buffer);
+                buffer.setLength(0);
+            }
+        }
+        target.append(suffix);
+        if (buffer != null)
+            appendable.append(buffer);
+        return appendable;
+    }
+
     /**
      * Gets the last element of this stream
      *
@@ -295,7 +767,136 @@ public abstract class Stream<E> implements Iterable<E> {
     public <R> Stream<R> map(final Mapper<E, R> mapper) {
         if (mapper == null)
             throw new IllegalArgumentException("Unable to map this stream because the mapper is null!");
-        return new MappedStream<E, R>(this, mapper);
+        return FusedStream.map(this, mapper);
+    }
+
+    /**
+     * Determines whether none of the elements in this stream satisfy the given predicate.
+     * The stream is only consumed up to the first element that satisfies it.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return true if no element satisfied the predicate or the stream is empty, false otherwise
+     */
+    public boolean none(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to determine if no element satisfies this filter because the filter is null!");
+        return !some(filter);
+    }
+
+    /**
+     * Sorts this stream using the provided comparator, like {@link #sort(Comparator)},
+     * but returns an ordered stream that can be sorted further with {@link OrderedStream#thenBy(Mapper)} or sorted on multiple threads with {@link OrderedStream#parallel()}.
+     *
+     * @param comparator the comparator to use as the basis for the sorting
+     * @return a new ordered stream containing all elements of this stream in the order as specified by the comparator
+     */
+    public OrderedStream<E> orderBy(final Comparator<E> comparator) {
+        if (comparator == null)
+            throw new IllegalArgumentException("Unable to sort stream because the comparator is null!");
+        return new SortedStream<E>(this, comparator);
+    }
+
+    /**
+     * Sorts this stream based on a property of each element, like {@link #sortBy(Mapper)},
+     * but returns an ordered stream that can be sorted further with {@link OrderedStream#thenBy(Mapper)} or sorted on multiple threads with {@link OrderedStream#parallel()}.
+     *
+     * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
+     * @param <T>    the type of the property that is the basis for the comparison
+     * @return a new ordered stream containing all elements of this stream sorted by the given property
+     */
+    public <T extends Comparable<T>> OrderedStream<E> orderBy(final Mapper<E, T> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return new SortedStream<E>(this, mapper, false);
+    }
+
+    /**
+     * Sorts this stream descendingly based on a property of each element, like {@link #sortByDescending(Mapper)},
+     * but returns an ordered stream that can be sorted further with {@link OrderedStream#thenBy(Mapper)} or sorted on multiple threads with {@link OrderedStream#parallel()}.
+     *
+     * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
+     * @param <T>    the type of the property that is the basis for the comparison
+     * @return a new ordered stream containing all elements of this stream sorted descendingly by the given property
+     */
+    public <T extends Comparable<T>> OrderedStream<E> orderByDescending(final Mapper<E, T> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return new SortedStream<E>(this, mapper, true);
+    }
+
+    /**
+     * Maps each element of this stream to another value on multiple threads, while keeping the original order.
+     * The elements are read from this stream on the iterating thread and handed to the other threads, staying at most the window size ahead
+     * of the iteration, so the stream remains lazy and can even be infinite. The results are returned in the order of the elements,
+     * waiting for a slow element if the ones after it are already done. This only pays off when mapping an element costs a lot more than reading it.
+     * When the mapper throws an exception, the elements that were still being mapped are cancelled and the exception is rethrown.
+     *
+     * @param mapper  the mapping function that takes an element and returns another value, which must be safe to call from multiple threads
+     * @param threads the number of threads to map with
+     * @param window  the maximum number of elements that are mapped or waiting to be returned at the same time
+     * @param <R>     the type of the element after it has been mapped
+     * @return a new stream containing the mapped elements
+     */
+    public <R> Stream<R> parallelMap(final Mapper<E, R> mapper, final int threads, final int window) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to map stream because the mapper is null!");
+        if (threads < 1)
+            throw new IllegalArgumentException("Unable to map stream in parallel because the number of threads is less than one!");
+        if (window < 1)
+            throw new IllegalArgumentException("Unable to map stream in parallel because the window is less than one!");
+        return new ParallelMappedStream<E, R>(this, mapper, threads, window);
+    }
+
+    /**
+     * Splits this stream into the elements that satisfy the given filter and the elements that do not, in a single iteration.
+     * The filter is applied only once per element.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return a partition with a list of the accepted elements and a list of the rejected elements
+     */
+    public Partition<List<E>> partition(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to partition this stream because the filter is null!");
+        final List<E> accepted = new ArrayList<E>();
+        final List<E> rejected = new ArrayList<E>();
+        for (E e : this)
+            (filter.apply(e) ? accepted : rejected).add(e);
+        return new PartitionImpl<List<E>>(accepted, rejected);
+    }
+
+    /**
+     * Splits this stream lazily into the elements that satisfy the given filter and the elements that do not.
+     * Both halves share a single iteration of this stream, and the filter is applied only once per element.
+     * While one half is being iterated, the elements of the other half that are passed along the way are buffered until the other half gets to them,
+     * so only the half that is not being iterated takes up memory. Each half can be iterated only once, and not from multiple threads.
+     *
+     * @param filter the filter that returns true or false for any given element
+     * @return a partition with a stream of the accepted elements and a stream of the rejected elements
+     */
+    public Partition<Stream<E>> partitionLazily(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to partition this stream because the filter is null!");
+        final Partitioner<E> partitioner = new Partitioner<E>(this, filter);
+        return new PartitionImpl<Stream<E>>(new PartitionedStream<E>(this, partitioner, true), new PartitionedStream<E>(this, partitioner, false));
+    }
+
+    /**
+     * Reads this stream ahead on a background thread, so the work before this operator overlaps with the work after it.
+     * Every iteration starts a thread that iterates this stream into a buffer, from which the elements are handed out in the same order.
+     * When the buffer is full the thread waits. The thread stops when the iteration reaches the end, and when an operator after this one
+     * stops early: take, takeWhile, first, or a short-circuiting reduction such as some, all, none, findFirst or indexOf, also through map and filter.
+     * When the iteration is abandoned in any other way inside {@link ExecutionContext#run(java.util.concurrent.Callable)}, the thread stops as soon as the task returns.
+     * <b>Note:</b> outside of an execution context, an iteration that is abandoned in any other way, such as a loop that breaks,
+     * leaves the thread waiting until the iterator has been garbage collected.
+     * An exception thrown while iterating this stream is rethrown to the consumer when it reaches that point.
+     *
+     * @param bufferSize the maximum number of elements to read ahead
+     * @return a new stream containing the same elements, read ahead on another thread
+     */
+    public Stream<E> prefetch(final int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Unable to prefetch this stream because the buffer size is less than one!");
+        return new PrefetchStream<E>(this, bufferSize);
     }
 
     /**
@@ -311,6 +912,8 @@ public abstract class Stream<E> implements Iterable<E> {
      * }
      * </pre>
      *
+     * If the reducer is a {@link ShortCircuitingReducer}, the stream is only consumed until the reducer is done.
+     *
      * @param reducer      the reduction function that turns the current value and the next element into the next value
      * @param initialValue the initial value to start from. This is also the value that will be returned when the stream is empty.
      * @param <R>          the type of the result of the reduced stream
@@ -319,13 +922,144 @@ public abstract class Stream<E> implements Iterable<E> {
     public <R> R reduce(final Reducer<E, R> reducer, final R initialValue) {
         if (reducer == null)
             throw new IllegalArgumentException("Unable to reduce this stream because the reducer is null!");
+        final Checkpoint checkpoint = Checkpoint.open();
         R accumulator = initialValue;
+        if (reducer instanceof ShortCircuitingReducer) {
+            final ShortCircuitingReducer<E, R> shortCircuitingReducer = (ShortCircuitingReducer<E, R>) reducer;
+            final Iterator<E> iterator = iterator();
+            while (!shortCircuitingReducer.isDone(accumulator) && iterator.hasNext()) {
+                checkpoint.tick();
+                accumulator = reducer.reduce(accumulator, iterator.next());
+            }
+            if (shortCircuitingReducer.isDone(accumulator))
+                StoppableIterator.stopEarly(iterator);
+            return accumulator;
+        }
         for (E e : this) {
+            checkpoint.tick();
             accumulator = reducer.reduce(accumulator, e);
         }
         return accumulator;
     }
 
+    /**
+     * Computes multiple reductions in a single traversal of this stream, instead of traversing it once per reduction.
+     * Every element is fed to every reduction in turn. For example, to compute a count and a sum together:
+     * <pre>
+     * {@code Reduction<Integer, Integer> count = Reduction.of(countReducer, 0);
+     *   Reduction<Integer, Integer> sum = Reduction.of(sumReducer, 0);
+     *   Reductions results = numbers.reduceAll(count, sum);
+     *   int average = results.get(sum) / results.get(count);
+     * }
+     * </pre>
+     *
+     * @param reductions the reductions to compute
+     * @return the results of the reductions, which can be retrieved with {@link Reductions#get(Reduction)}
+     */
+    public Reductions reduceAll(final Reduction<E, ?>... reductions) {
+        if (reductions == null)
+            throw new IllegalArgumentException("Unable to reduce this stream because the array of reductions is null!");
+        final Object[] results = new Object[reductions.length];
+        for (int i = 0; i < reductions.length; i++) {
+            if (reductions[i] == null)
+                throw new IllegalArgumentException("Unable to reduce this stream because one of the reductions is null!");
+            results[i] = reductions[i].getInitialValue();
+        }
+        for (E e : this) {
+            for (int i = 0; i < reductions.length; i++) {
+                results[i] = reductions[i].reduce(results[i], e);
+            }
+        }
+        return new Reductions(reductions, results);
+    }
+
+    /**
+     * Takes a uniformly random sample of the elements of this stream, without knowing its length in advance.
+     * See {@link #sample(int, long)}. Every iteration takes a different sample.
+     *
+     * @param number the number of elements in the sample
+     * @return a new stream containing the sampled elements, in the order in which they appear in this stream
+     */
+    public Stream<E> sample(final int number) {
+        if (number < 0)
+            throw new IllegalArgumentException("Unable to sample this stream because the number of elements is negative!");
+        return new SampledStream<E>(this, number, null, null);
+    }
+
+    /**
+     * Takes a uniformly random sample of the elements of this stream, without knowing its length in advance.
+     * Every element has the same chance to be in the sample, and the memory used is proportional to the size of the sample instead of to the length of this stream.
+     * The whole stream is traversed when the sample is iterated. When this stream has fewer elements than the requested number, all of them are returned.
+     * The same seed gives the same sample of the same elements, which makes the sample reproducible.
+     *
+     * @param number the number of elements in the sample
+     * @param seed   the seed of the random numbers that decide which elements are sampled
+     * @return a new stream containing the sampled elements, in the order in which they appear in this stream
+     */
+    public Stream<E> sample(final int number, final long seed) {
+        if (number < 0)
+            throw new IllegalArgumentException("Unable to sample this stream because the number of elements is negative!");
+        return new SampledStream<E>(this, number, null, seed);
+    }
+
+    /**
+     * Takes a weighted random sample of the elements of this stream, without knowing its length in advance.
+     * See {@link #sample(int, Mapper, long)}. Every iteration takes a different sample.
+     *
+     * @param number       the number of elements in the sample
+     * @param weightMapper the function that returns the weight of an element
+     * @return a new stream containing the sampled elements, in the order in which they appear in this stream
+     */
+    public Stream<E> sample(final int number, final Mapper<E, Double> weightMapper) {
+        if (number < 0)
+            throw new IllegalArgumentException("Unable to sample this stream because the number of elements is negative!");
+        if (weightMapper == null)
+            throw new IllegalArgumentException("Unable to sample this stream because the weightMapper is null!");
+        return new SampledStream<E>(this, number, weightMapper, null);
+    }
+
+    /**
+     * Takes a weighted random sample of the elements of this stream, without knowing its length in advance.
+     * Elements with a higher weight are more likely to be in the sample: an element that weighs twice as much is twice as likely to be picked first.
+     * Elements that weigh zero are never sampled, and a negative, infinite or missing weight is an error.
+     * The memory used is proportional to the size of the sample instead of to the length of this stream.
+     * The same seed gives the same sample of the same elements, which makes the sample reproducible.
+     *
+     * @param number       the number of elements in the sample
+     * @param weightMapper the function that returns the weight of an element
+     * @param seed         the seed of the random numbers that decide which elements are sampled
+     * @return a new stream containing the sampled elements, in the order in which they appear in this stream
+     */
+    public Stream<E> sample(final int number, final Mapper<E, Double> weightMapper, final long seed) {
+        if (number < 0)
+            throw new IllegalArgumentException("Unable to sample this stream because the number of elements is negative!");
+        if (weightMapper == null)
+            throw new IllegalArgumentException("Unable to sample this stream because the weightMapper is null!");
+        return new SampledStream<E>(this, number, weightMapper, seed);
+    }
+
+    /**
+     * Splits this stream into sessions of activity and aggregates each session incrementally.
+     * A session ends when the time between two consecutive elements is at least the gap, and each session is returned as soon as it ends.
+     * The stream must be ordered by timestamp, which means that only one session is open at any time and no elements are buffered.
+     *
+     * @param timestampMapper the function that returns the timestamp of an element
+     * @param gap             the amount of inactivity that ends a session
+     * @param reducer         the reduction function that adds the next element of a session to its current value
+     * @param initialValue    the value of a session before its first element is added. This value is shared by all sessions, so it should be immutable.
+     * @param <R>             the type of the aggregated value
+     * @return a new stream containing a window for every session. The end of a session is the timestamp of its last element plus the gap.
+     */
+    public <R> Stream<TimeWindow<R>> sessionWindows(final Mapper<E, Long> timestampMapper, final long gap, final Reducer<E, R> reducer, final R initialValue) {
+        if (timestampMapper == null)
+            throw new IllegalArgumentException("Unable to window this stream because the timestampMapper is null!");
+        if (gap <= 0)
+            throw new IllegalArgumentException("Unable to window this stream because the gap is not positive!");
+        if (reducer == null)
+            throw new IllegalArgumentException("Unable to window this stream because the reducer is null!");
+        return new SessionWindowStream<E, R>(this, timestampMapper, gap, reducer, initialValue);
+    }
+
     /**
      * Skips a certain number of elements of this stream
      *
@@ -338,6 +1072,65 @@ public abstract class Stream<E> implements Iterable<E> {
         return new SkipStream<E>(this, number);
     }
 
+    /**
+     * Slides a window over this stream, moving one element at a time. See {@link #sliding(int, int)}.
+     *
+     * @param windowSize the number of elements in each window
+     * @return a new stream containing a view on each window
+     */
+    public Stream<List<E>> sliding(final int windowSize) {
+        return sliding(windowSize, 1);
+    }
+
+    /**
+     * Slides a window over this stream, moving a number of elements at a time. Only complete windows are returned.
+     * The last elements are kept in a ring buffer and each window is a read-only view on that buffer, so no list is copied per window.
+     * This also means that a window is only valid until the next window is requested: copy it if you need to retain it.
+     *
+     * @param windowSize the number of elements in each window
+     * @param step       the number of elements to move the window forward for the next window
+     * @return a new stream containing a view on each window
+     */
+    public Stream<List<E>> sliding(final int windowSize, final int step) {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Unable to slide over this stream because the window size is not positive!");
+        if (step <= 0)
+            throw new IllegalArgumentException("Unable to slide over this stream because the step is not positive!");
+        return new SlidingStream<E>(this, windowSize, step);
+    }
+
+    /**
+     * Slides a window over this stream, moving one element at a time, and aggregates each window incrementally.
+     * When an element enters the window, it is added to the current value using the adder. When it leaves the window, it is removed using the evictor.
+     * This makes moving sums and averages cost a constant amount of work per element. For example, a moving sum:
+     * <pre>
+     * {@code Stream<Integer> movingSums = numbers.sliding(3, new Reducer<Integer, Integer>() {
+     *          public Integer reduce(Integer sum, Integer number) {
+     *              return sum + number;
+     *          }
+     *     }, new Reducer<Integer, Integer>() {
+     *          public Integer reduce(Integer sum, Integer number) {
+     *              return sum - number;
+     *          }
+     *     }, 0)
+     * }
+     * </pre>
+     *
+     * @param windowSize   the number of elements in each window
+     * @param adder        the function that adds an element entering the window to the current value
+     * @param evictor      the function that removes an element leaving the window from the current value
+     * @param initialValue the value of an empty window
+     * @param <R>          the type of the aggregated value
+     * @return a new stream containing the aggregated value of each complete window
+     */
+    public <R> Stream<R> sliding(final int windowSize, final Reducer<E, R> adder, final Reducer<E, R> evictor, final R initialValue) {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Unable to slide over this stream because the window size is not positive!");
+        if (adder == null || evictor == null)
+            throw new IllegalArgumentException("Unable to slide over this stream because the adder or evictor is null!");
+        return new SlidingAggregateStream<E, R>(this, windowSize, adder, evictor, initialValue);
+    }
+
     /**
      * Determines whether any of the elements in this stream satisfy the given predicate
      *
@@ -347,13 +1140,24 @@ public abstract class Stream<E> implements Iterable<E> {
     public boolean some(final Filter<E> filter) {
         if (filter == null)
             throw new IllegalArgumentException("Unable to determine if some element satisfies this filter because the filter is null!");
-        return this.filter(filter).iterator().hasNext();
+        return reduce(new ShortCircuitingReducer<E, Boolean>() {
+            @Override
+            public Boolean reduce(Boolean isSatisfied, E e) {
+                return filter.apply(e);
+            }
+
+            @Override
+            public boolean isDone(Boolean isSatisfied) {
+                return isSatisfied;
+            }
+        }, false);
     }
 
     /**
      * Sorts this stream using the provided comparator. This operator is lazy but greedy, meaning that it will wait as long as possible to actually materialize your stream
      * to sort it. Once you start iterating over the elements, it will sort just in time.
      * Note that multiple iterations will also a separate sort every time.
+     * To sort by further keys or on multiple threads, use {@link #orderBy(Comparator)} instead.
      *
      * @param comparator the comparator to use as the basis for the sorting
      * @return a new stream containing all elements of this stream in the order as specified by the comparator
@@ -365,6 +1169,8 @@ public abstract class Stream<E> implements Iterable<E> {
 
     /**
      * Sorts this stream based on a property of each element, provided that that property implements Comparable.
+     * The property is computed only once per element, no matter how many comparisons the sort needs.
+     * Elements with an equal property keep their order. To sort them further by other properties, use {@link #orderBy(Mapper)} instead.
      *
      * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
      * @param <T>    the type of the property that is the basis for the comparison
@@ -373,16 +1179,13 @@ public abstract class Stream<E> implements Iterable<E> {
     public <T extends Comparable<T>> Stream<E> sortBy(final Mapper<E, T> mapper) {
         if (mapper == null)
             throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
-        return sort(new Comparator<E>() {
-            @Override
-            public int compare(E left, E right) {
-                return mapper.map(left).compareTo(mapper.map(right));
-            }
-        });
+        return new SortedStream<E>(this, mapper, false);
     }
 
     /**
      * Sorts this stream descendingly based on a mapped value of each element, provided that that value implements Comparable.
+     * The value is computed only once per element, no matter how many comparisons the sort needs.
+     * Elements with an equal value keep their order. To sort them further by other properties, use {@link #orderByDescending(Mapper)} instead.
      *
      * @param mapper the function that extracts a value from an element so it can be used as the basis for the comparison
      * @param <T>    the type of the property that is the basis for the comparison
@@ -391,12 +1194,47 @@ public abstract class Stream<E> implements Iterable<E> {
     public <T extends Comparable<T>> Stream<E> sortByDescending(final Mapper<E, T> mapper) {
         if (mapper == null)
             throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
-        return sort(new Comparator<E>() {
-            @Override
-            public int compare(E left, E right) {
-                return mapper.map(right).compareTo(mapper.map(left));
-            }
-        });
+        return new SortedStream<E>(this, mapper, true);
+    }
+
+    /**
+     * Sorts this stream based on an int property of each element, using a radix sort instead of comparisons.
+     * The properties are computed once per element and sorted without boxing them. Elements with an equal property keep their order.
+     *
+     * @param mapper the function that extracts an int from an element so it can be used as the basis for the sorting
+     * @return a new stream containing all elements of this stream sorted by the given property
+     */
+    public Stream<E> sortByInt(final IntMapper<E> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return new RadixSortedStream<E>(this, mapper);
+    }
+
+    /**
+     * Sorts this stream based on a long property of each element, using a radix sort instead of comparisons.
+     * The properties are computed once per element and sorted without boxing them. Elements with an equal property keep their order.
+     *
+     * @param mapper the function that extracts a long from an element so it can be used as the basis for the sorting
+     * @return a new stream containing all elements of this stream sorted by the given property
+     */
+    public Stream<E> sortByLong(final LongMapper<E> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return new RadixSortedStream<E>(this, mapper);
+    }
+
+    /**
+     * Sorts this stream based on a String property of each element, using a radix sort instead of comparisons.
+     * The order is the same as the natural order of String. The properties are computed once per element and must not be null.
+     * Elements with an equal property keep their order.
+     *
+     * @param mapper the function that extracts a String from an element so it can be used as the basis for the sorting
+     * @return a new stream containing all elements of this stream sorted by the given property
+     */
+    public Stream<E> sortByString(final Mapper<E, String> mapper) {
+        if (mapper == null)
+            throw new IllegalArgumentException("Unable to sort stream because the mapper is null!");
+        return new RadixSortedStream<E>(this, mapper);
     }
 
     /**
@@ -411,21 +1249,106 @@ public abstract class Stream<E> implements Iterable<E> {
         return new TakeStream<E>(this, number);
     }
 
+    /**
+     * Takes the elements of this stream as long as they satisfy the given predicate.
+     * The stream ends at the first element that does not satisfy it, and the elements after that are never read.
+     *
+     * @param filter the filter that returns true for the elements that should be taken
+     * @return a new stream containing the elements of this stream up to the first one that did not satisfy the predicate
+     */
+    public Stream<E> takeWhile(final Filter<E> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Unable to take elements from this stream because the filter is null!");
+        return new TakeWhileStream<E>(this, filter);
+    }
+
+    /**
+     * Turns this stream into a compact, read-only list that stores its elements outside of the heap.
+     * Every element is encoded with the codec into direct memory segments and only decoded again when it is read,
+     * so the heap footprint of the list does not grow with the number of elements.
+     * Use this for large intermediate results that would otherwise put pressure on the garbage collector, for example with {@code Stream.create(compactList)}.
+     *
+     * @param codec the codec used to encode and decode the elements
+     * @return a new read-only list containing all the elements of this stream
+     */
+    public List<E> toCompactList(final Codec<E> codec) {
+        if (codec == null)
+            throw new IllegalArgumentException("Unable to convert this stream to a compact list because the codec is null!");
+        return reduce(new Reducer<E, CompactList<E>>() {
+            @Override
+            public CompactList<E> reduce(CompactList<E> list, E element) {
+                list.append(element);
+                return list;
+            }
+        }, new CompactList<E>(codec, CompactList.DEFAULT_SEGMENT_SIZE));
+    }
+
+    /**
+     * Builds an index over this stream, so the elements with a certain key can be looked up in constant time.
+     * Unlike {@link #toMap(Mapper)}, elements with the same key are all retained. The elements are stored in one array, grouped by key,
+     * and the keys in an open addressing table, so there is no list per key.
+     *
+     * @param keyMapper the function that extracts the key from an element
+     * @param <K>       the type of the keys
+     * @return an index from each key to the elements with that key
+     */
+    public <K> Index<K, E> toIndex(final Mapper<E, K> keyMapper) {
+        if (keyMapper == null)
+            throw new IllegalArgumentException("Unable to index stream because the keyMapper is null!");
+        return new IndexImpl<K, E>(toList(), keyMapper);
+    }
+
+    /**
+     * Builds an index over this stream with int keys, so the elements with a certain key can be looked up in constant time without boxing the key.
+     * See {@link #toIndex(Mapper)}.
+     *
+     * @param keyMapper the function that extracts the key from an element
+     * @return an index from each key to the elements with that key
+     */
+    public IntIndex<E> toIntIndex(final IntMapper<E> keyMapper) {
+        if (keyMapper == null)
+            throw new IllegalArgumentException("Unable to index stream because the keyMapper is null!");
+        return new IntIndexImpl<E>(toList(), keyMapper);
+    }
+
     /**
      * Turns this stream into a list
      *
      * @return a new list containing all the elements of this stream
      */
     public List<E> toList() {
+        final MemoryAccount account = MemoryAccount.open("toList");
+        try {
+            return toList(account);
+        } finally {
+            account.release();
+        }
+    }
+
+    final List<E> toList(final MemoryAccount account) {
         return reduce(new Reducer<E, List<E>>() {
             @Override
             public List<E> reduce(List<E> list, E element) {
+                account.add(element);
                 list.add(element);
                 return list;
             }
         }, new ArrayList<E>());
     }
 
+    /**
+     * Builds an index over this stream with long keys, so the elements with a certain key can be looked up in constant time without boxing the key.
+     * See {@link #toIndex(Mapper)}.
+     *
+     * @param keyMapper the function that extracts the key from an element
+     * @return an index from each key to the elements with that key
+     */
+    public LongIndex<E> toLongIndex(final LongMapper<E> keyMapper) {
+        if (keyMapper == null)
+            throw new IllegalArgumentException("Unable to index stream because the keyMapper is null!");
+        return new LongIndexImpl<E>(toList(), keyMapper);
+    }
+
     /**
      * Creates a {@link Map} from this stream.
      * Note that the map will only contain one element for each key. If two elements with the same key are encountered, only the last one is retained.
@@ -467,16 +1390,38 @@ public abstract class Stream<E> implements Iterable<E> {
         }, new HashMap<K, V>());
     }
 
+    /**
+     * Turns this stream into a publisher, which honours the demand of its subscribers.
+     * Every subscriber iterates this stream on its own, on the thread that requests the elements, and receives as many elements
+     * as it requested in one go. When the stream has no more elements the subscriber is completed, and when iterating fails the failure is published.
+     * Since a publisher may not publish null, reaching a null element publishes a NullPointerException instead.
+     *
+     * @return a publisher of the elements of this stream
+     */
+    public Publisher<E> toPublisher() {
+        return new StreamPublisher<E>(this);
+    }
+
     /**
      * Turns this stream into a set
      *
      * @return a new set containing the elements of this stream
      */
     public Set<E> toSet() {
+        final MemoryAccount account = MemoryAccount.open("toSet");
+        try {
+            return toSet(account);
+        } finally {
+            account.release();
+        }
+    }
+
+    final Set<E> toSet(final MemoryAccount account) {
         return reduce(new Reducer<E, Set<E>>() {
             @Override
             public Set<E> reduce(Set<E> set, E element) {
-                set.add(element);
+                if (set.add(element))
+                    account.add(element);
                 return set;
             }
         }, new HashSet<E>());
@@ -485,6 +1430,7 @@ public abstract class Stream<E> implements Iterable<E> {
     /**
      * Filters out elements from this stream based on the elements from another.
      * Only elements that are NOT in the other stream are allowed to pass through.
+     * The other stream is collected into a hash set first, unless it was created from a HashSet, which is then looked up directly.
      *
      * @param other the stream containing elements that are forbidden to pass through
      * @return a new stream containing only elements that cannot be found in the other stream
@@ -493,4 +1439,64 @@ public abstract class Stream<E> implements Iterable<E> {
         if (other == null) throw new IllegalArgumentException("The argument 'other' cannot be null!");
         return new WithoutStream<E>(this, other);
     }
+
+    /**
+     * Splits this stream into consecutive windows of a fixed amount of time and aggregates each window incrementally.
+     * Each window is returned as soon as an element of a later window arrives, windows without elements are skipped.
+     * The stream must be ordered by timestamp, which means that only one window is open at any time and no elements are buffered.
+     *
+     * @param timestampMapper the function that returns the timestamp of an element
+     * @param size            the amount of time covered by one window. Windows are aligned to multiples of this size.
+     * @param reducer         the reduction function that adds the next element of a window to its current value
+     * @param initialValue    the value of a window before its first element is added. This value is shared by all windows, so it should be immutable.
+     * @param <R>             the type of the aggregated value
+     * @return a new stream containing every window that has at least one element
+     */
+    public <R> Stream<TimeWindow<R>> windowByTime(final Mapper<E, Long> timestampMapper, final long size, final Reducer<E, R> reducer, final R initialValue) {
+        if (timestampMapper == null)
+            throw new IllegalArgumentException("Unable to window this stream because the timestampMapper is null!");
+        if (size <= 0)
+            throw new IllegalArgumentException("Unable to window this stream because the size is not positive!");
+        if (reducer == null)
+            throw new IllegalArgumentException("Unable to window this stream because the reducer is null!");
+        return new TumblingWindowStream<E, R>(this, timestampMapper, size, reducer, initialValue);
+    }
+
+    /**
+     * Writes every element of this stream as a separate line to the provided writer, using the formatter to turn an element into a line.
+     * The output is buffered and flushed when all elements have been written, but the writer is not closed.
+     * Only one formatted element is held in memory at a time, so this can be used to stream large exports.
+     *
+     * @param writer    the writer to write the lines to
+     * @param formatter the function that turns an element into a line, without the line separator
+     * @throws IOException if the writer fails to write
+     */
+    public void writeTo(final Writer writer, final Mapper<E, ? extends CharSequence> formatter) throws IOException {
+        if (writer == null)
+            throw new IllegalArgumentException("Unable to write this stream because the writer is null!");
+        if (formatter == null)
+            throw new IllegalArgumentException("Unable to write this stream because the formatter is null!");
+        final Writer bufferedWriter = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        for (E e : this) {
+            bufferedWriter.append(formatter.map(e)).append('\n');
+        }
+        bufferedWriter.flush();
+    }
+
+    /**
+     * Writes every element of this stream as a separate line to the provided output stream, using the formatter to turn an element into a line.
+     * See {@link #writeTo(Writer, Mapper)}.
+     *
+     * @param outputStream the output stream to write the lines to
+     * @param charset      the charset used to encode the lines
+     * @param formatter    the function that turns an element into a line, without the line separator
+     * @throws IOException if the output stream fails to write
+     */
+    public void writeTo(final OutputStream outputStream, final Charset charset, final Mapper<E, ? extends CharSequence> formatter) throws IOException {
+        if (outputStream == null)
+            throw new IllegalArgumentException("Unable to write this stream because the output stream is null!");
+        if (charset == null)
+            throw new IllegalArgumentException("Unable to write this stream because the charset is null!");
+        writeTo(new OutputStreamWriter(outputStream, charset), formatter);
+    }
 }
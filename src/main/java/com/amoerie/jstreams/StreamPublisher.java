@@ -0,0 +1,146 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.amoerie.jstreams.reactive.Publisher;
+import com.amoerie.jstreams.reactive.Subscriber;
+import com.amoerie.jstreams.reactive.Subscription;
+
+class StreamPublisher<E> implements Publisher<E> {
+
+    private final Stream<E> stream;
+
+    StreamPublisher(Stream<E> stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super E> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("Unable to subscribe because the subscriber is null!");
+        final StreamSubscription<E> subscription = new StreamSubscription<E>(stream, subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    // every subscriber iterates the stream on its own, on whichever thread requests the elements
+    private static class StreamSubscription<E> implements Subscription {
+        private final Stream<E> stream;
+        private final Subscriber<? super E> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // makes sure only one thread emits at a time, and that a request from within onNext does not recurse
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        // a failure of the stream or of a request, signalled by whichever thread is draining
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private volatile boolean isCancelled;
+        private Iterator<E> iterator;
+
+        private StreamSubscription(Stream<E> stream, Subscriber<? super E> subscriber) {
+            this.stream = stream;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // the failure is signalled by the drain loop, so it never overlaps with an onNext on another thread
+                failure.compareAndSet(null, new IllegalArgumentException("Unable to publish elements because the requested number " + n + " is not positive!"));
+                drain();
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE)
+                    break;
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            do {
+                // emit as many elements as were requested in one go, instead of going back to the demand after every element
+                final long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !isCancelled && failure.get() == null && tryHasNext()) {
+                    final E element = tryNext();
+                    if (element == null) {
+                        // Reactive Streams does not allow null elements, so a stream that contains one fails instead
+                        failure.compareAndSet(null, new NullPointerException("Unable to publish the element because it is null!"));
+                        break;
+                    }
+                    if (!emit(element))
+                        return;
+                    emitted++;
+                }
+                if (isCancelled)
+                    return;
+                if (failure.get() != null || !tryHasNext()) {
+                    terminate(failure.get());
+                    return;
+                }
+                if (requested != Long.MAX_VALUE)
+                    demand.addAndGet(-emitted);
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // an exception thrown by the stream ends the subscription and is published to the subscriber
+        private boolean tryHasNext() {
+            try {
+                if (iterator == null)
+                    iterator = stream.iterator();
+                return iterator.hasNext();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } catch (Error e) {
+                failure.compareAndSet(null, e);
+            }
+            return false;
+        }
+
+        private E tryNext() {
+            try {
+                return iterator.next();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } catch (Error e) {
+                failure.compareAndSet(null, e);
+            }
+            return null;
+        }
+
+        // a subscriber that throws breaks its contract, so its subscription is cancelled instead of reporting the exception back to it
+        private boolean emit(E element) {
+            try {
+                subscriber.onNext(element);
+                return true;
+            } catch (RuntimeException e) {
+                isCancelled = true;
+                return false;
+            }
+        }
+
+        private void terminate(Throwable throwable) {
+            isCancelled = true;
+            try {
+                if (throwable == null)
+                    subscriber.onComplete();
+                else
+                    subscriber.onError(throwable);
+            } catch (RuntimeException e) {
+                // the subscription is over either way
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.amoerie.jstreams;
 
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -13,15 +14,29 @@ class TakeStream<E> extends Stream<E> {
         this.number = number;
     }
 
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
     @Override
     public Iterator<E> iterator() {
         final Iterator<E> iterator = stream.iterator();
-        return new Iterator<E>() {
+        return new StoppableIterator<E>() {
             private int taken = 0;
 
             @Override
             public boolean hasNext() {
-                return taken < number && iterator.hasNext();
+                if (taken < number)
+                    return iterator.hasNext();
+                // the rest of the source is not needed, so whatever it holds on to can be let go of
+                StoppableIterator.stopEarly(iterator);
+                return false;
             }
 
             @Override
@@ -37,6 +52,11 @@ class TakeStream<E> extends Stream<E> {
             public void remove() {
                 throw new UnsupportedOperationException();
             }
+
+            @Override
+            void stop() {
+                StoppableIterator.stopEarly(iterator);
+            }
         };
     }
 }
@@ -0,0 +1,81 @@
+package com.amoerie.jstreams;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Filter;
+
+class TakeWhileStream<E> extends Stream<E> {
+
+    private final Stream<E> stream;
+    private final Filter<E> filter;
+
+    TakeWhileStream(Stream<E> stream, Filter<E> filter) {
+        this.stream = stream;
+        this.filter = filter;
+    }
+
+    @Override
+    int characteristics() {
+        return stream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return stream.comparator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        return new StoppableIterator<E>() {
+
+            private boolean isNextElementReady;
+            private boolean isDone;
+            private E nextElement;
+
+            private boolean tryPrepareNextElement() {
+                if (isNextElementReady || isDone)
+                    return isNextElementReady;
+                if (iterator.hasNext()) {
+                    final E element = iterator.next();
+                    if (filter.apply(element)) {
+                        nextElement = element;
+                        isNextElementReady = true;
+                        return true;
+                    }
+                }
+                // the source is not read any further once an element fails the filter
+                isDone = true;
+                StoppableIterator.stopEarly(iterator);
+                return false;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextElement();
+            }
+
+            @Override
+            public E next() {
+                if (!tryPrepareNextElement())
+                    throw new NoSuchElementException();
+                isNextElementReady = false;
+                final E element = nextElement;
+                nextElement = null;
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            void stop() {
+                StoppableIterator.stopEarly(iterator);
+            }
+        };
+    }
+}
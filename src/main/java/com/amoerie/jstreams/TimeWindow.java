@@ -0,0 +1,31 @@
+package com.amoerie.jstreams;
+
+/**
+ * Represents a window of time over a stream, together with the aggregated value of the elements that fell into it.
+ * @param <R> the type of the aggregated value
+ */
+public abstract class TimeWindow<R> {
+    /**
+     * Gets the start of this window
+     * @return the start of this window, inclusive
+     */
+    public abstract long getStart();
+
+    /**
+     * Gets the end of this window
+     * @return the end of this window, exclusive
+     */
+    public abstract long getEnd();
+
+    /**
+     * Gets the number of elements that fell into this window
+     * @return the number of elements in this window
+     */
+    public abstract long getCount();
+
+    /**
+     * Gets the aggregated value of the elements that fell into this window
+     * @return the aggregated value of this window
+     */
+    public abstract R getValue();
+}
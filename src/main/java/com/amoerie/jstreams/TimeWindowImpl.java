@@ -0,0 +1,46 @@
+package com.amoerie.jstreams;
+
+class TimeWindowImpl<R> extends TimeWindow<R> {
+
+    private final long start;
+    private final long end;
+    private final long count;
+    private final R value;
+
+    public TimeWindowImpl(long start, long end, long count, R value) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.value = value;
+    }
+
+    @Override
+    public long getStart() {
+        return this.start;
+    }
+
+    @Override
+    public long getEnd() {
+        return this.end;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public R getValue() {
+        return this.value;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeWindow{" +
+                "start=" + start +
+                ", end=" + end +
+                ", count=" + count +
+                ", value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+package com.amoerie.jstreams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.amoerie.jstreams.functions.Mapper;
+
+class TopGroupedStream<K, E> extends Stream<Group<K, E>> {
+
+    private final Stream<E> stream;
+    private final Mapper<E, K> keyMapper;
+    private final Comparator<E> comparator;
+    private final int number;
+
+    TopGroupedStream(Stream<E> stream, Mapper<E, K> keyMapper, Comparator<E> comparator, int number) {
+        this.stream = stream;
+        this.keyMapper = keyMapper;
+        this.comparator = comparator;
+        this.number = number;
+    }
+
+    private static class Ranked<E> {
+        private final E element;
+        // the position in the stream, so that of two equal elements the first one ranks higher
+        private final long sequence;
+
+        private Ranked(E element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+
+    private final Comparator<Ranked<E>> ranking = new Comparator<Ranked<E>>() {
+        @Override
+        public int compare(Ranked<E> left, Ranked<E> right) {
+            final int comparison = comparator.compare(left.element, right.element);
+            if (comparison != 0)
+                return comparison;
+            return left.sequence < right.sequence ? -1 : (left.sequence == right.sequence ? 0 : 1);
+        }
+    };
+
+    @Override
+    int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+    @Override
+    public Iterator<Group<K, E>> iterator() {
+        // every key keeps only its best elements so far, with the worst of them on top of the heap so it can be replaced
+        final Comparator<Ranked<E>> worstFirst = Collections.reverseOrder(ranking);
+        final Map<K, PriorityQueue<Ranked<E>>> heaps = new LinkedHashMap<K, PriorityQueue<Ranked<E>>>();
+        final Checkpoint checkpoint = Checkpoint.open();
+        long sequence = 0;
+        for (E element : stream) {
+            checkpoint.tick();
+            final K key = keyMapper.map(element);
+            PriorityQueue<Ranked<E>> heap = heaps.get(key);
+            if (heap == null) {
+                heap = new PriorityQueue<Ranked<E>>(Math.min(number, 16), worstFirst);
+                heaps.put(key, heap);
+            }
+            final Ranked<E> ranked = new Ranked<E>(element, sequence++);
+            if (heap.size() < number) {
+                heap.add(ranked);
+            } else if (ranking.compare(ranked, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+        final Iterator<Map.Entry<K, PriorityQueue<Ranked<E>>>> iterator = heaps.entrySet().iterator();
+        return new Iterator<Group<K, E>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Group<K, E> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final Map.Entry<K, PriorityQueue<Ranked<E>>> next = iterator.next();
+                final List<Ranked<E>> ranked = new ArrayList<Ranked<E>>(next.getValue());
+                Collections.sort(ranked, ranking);
+                final List<E> elements = new ArrayList<E>(ranked.size());
+                for (Ranked<E> r : ranked)
+                    elements.add(r.element);
+                return new GroupImpl<K, E>(next.getKey(), Stream.create(elements));
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
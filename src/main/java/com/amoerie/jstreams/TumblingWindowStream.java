@@ -0,0 +1,89 @@
+package com.amoerie.jstreams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.amoerie.jstreams.functions.Mapper;
+import com.amoerie.jstreams.functions.Reducer;
+
+class TumblingWindowStream<E, R> extends Stream<TimeWindow<R>> {
+
+    private final Stream<E> stream;
+    private final Mapper<E, Long> timestampMapper;
+    private final long size;
+    private final Reducer<E, R> reducer;
+    private final R initialValue;
+
+    TumblingWindowStream(Stream<E> stream, Mapper<E, Long> timestampMapper, long size, Reducer<E, R> reducer, R initialValue) {
+        this.stream = stream;
+        this.timestampMapper = timestampMapper;
+        this.size = size;
+        this.reducer = reducer;
+        this.initialValue = initialValue;
+    }
+
+    private long startOf(long timestamp) {
+        // rounds down, also for negative timestamps
+        final long remainder = timestamp % size;
+        return remainder < 0 ? timestamp - remainder - size : timestamp - remainder;
+    }
+
+    @Override
+    public Iterator<TimeWindow<R>> iterator() {
+        final Iterator<E> iterator = stream.iterator();
+        return new Iterator<TimeWindow<R>>() {
+
+            private boolean isWindowOpen;
+            private long start;
+            private long count;
+            private R accumulator;
+            private TimeWindow<R> nextWindow;
+
+            private boolean tryPrepareNextWindow() {
+                while (nextWindow == null && iterator.hasNext()) {
+                    final E e = iterator.next();
+                    final long timestamp = timestampMapper.map(e);
+                    final long windowStart = startOf(timestamp);
+                    if (isWindowOpen && windowStart < start)
+                        throw new IllegalStateException("Unable to window this stream because it is not ordered by timestamp: " + timestamp + " arrived after the window starting at " + start + " was opened!");
+                    if (isWindowOpen && windowStart != start) {
+                        nextWindow = new TimeWindowImpl<R>(start, start + size, count, accumulator);
+                        isWindowOpen = false;
+                    }
+                    if (!isWindowOpen) {
+                        isWindowOpen = true;
+                        start = windowStart;
+                        count = 0;
+                        accumulator = initialValue;
+                    }
+                    accumulator = reducer.reduce(accumulator, e);
+                    count++;
+                }
+                if (nextWindow == null && isWindowOpen) {
+                    nextWindow = new TimeWindowImpl<R>(start, start + size, count, accumulator);
+                    isWindowOpen = false;
+                }
+                return nextWindow != null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return tryPrepareNextWindow();
+            }
+
+            @Override
+            public TimeWindow<R> next() {
+                if (!tryPrepareNextWindow())
+                    throw new NoSuchElementException();
+                final TimeWindow<R> window = nextWindow;
+                nextWindow = null;
+                return window;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
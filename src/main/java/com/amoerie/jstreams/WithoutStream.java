@@ -2,6 +2,8 @@ package com.amoerie.jstreams;
 
 import com.amoerie.jstreams.functions.Filter;
 
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -15,14 +17,36 @@ class WithoutStream<E> extends Stream<E> {
         this.forbiddenElementsStream = forbiddenElementsStream;
     }
 
+    @SuppressWarnings("unchecked")
+    private Set<E> forbiddenElementsSet(MemoryAccount account) {
+        // a distinct stream over a hash set already is the set that would be built, so it is looked up directly instead of being copied
+        if (forbiddenElementsStream instanceof IterableStream && forbiddenElementsStream.hasCharacteristics(DISTINCT)) {
+            final Iterable<E> iterable = ((IterableStream<E>) forbiddenElementsStream).getIterable();
+            if (iterable instanceof HashSet)
+                return (Set<E>) iterable;
+        }
+        return forbiddenElementsStream.toSet(account);
+    }
+
+    @Override
+    int characteristics() {
+        return originalStream.characteristics();
+    }
+
+    @Override
+    Comparator<? super E> comparator() {
+        return originalStream.comparator();
+    }
+
     @Override
     public Iterator<E> iterator() {
-        final Set<E> forbiddenElementsSet = forbiddenElementsStream.toSet();
-        return this.originalStream.filter(new Filter<E>() {
+        final MemoryAccount account = MemoryAccount.open("without");
+        final Set<E> forbiddenElementsSet = forbiddenElementsSet(account);
+        return account.releaseWhenDone(this.originalStream.filter(new Filter<E>() {
             @Override
             public boolean apply(E e) {
                 return !forbiddenElementsSet.contains(e);
             }
-        }).iterator();
+        }).iterator());
     }
 }
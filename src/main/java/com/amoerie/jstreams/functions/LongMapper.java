@@ -0,0 +1,14 @@
+package com.amoerie.jstreams.functions;
+
+/**
+ * Represents a mapping operation that turns an element into a primitive long, without boxing it.
+ * @param <E> the type of element that is put into the mapper
+ */
+public interface LongMapper<E> {
+    /**
+     * Maps an element to a long
+     * @param e the element
+     * @return a long that was somehow determined using the element
+     */
+    long map(E e);
+}
@@ -0,0 +1,15 @@
+package com.amoerie.jstreams.functions;
+
+/**
+ * Represents a reducing function that can tell when its result is final, so the remaining elements do not need to be reduced.
+ * @param <E> the type of element that gets put into the reducer
+ * @param <R> the type of the final value that is returned
+ */
+public interface ShortCircuitingReducer<E, R> extends Reducer<E, R> {
+    /**
+     * Determines whether reducing more elements could still change the result
+     * @param r the result so far of the already reduced elements
+     * @return true if the result is final and the reduction can stop, false otherwise
+     */
+    boolean isDone(R r);
+}
@@ -0,0 +1,13 @@
+package com.amoerie.jstreams.functions;
+
+/**
+ * Represents a function that estimates how much memory an element takes up while it is held by a stream.
+ */
+public interface SizeEstimator {
+    /**
+     * Estimates the memory that is retained by holding on to the element
+     * @param element the element, which may be null
+     * @return the estimated number of bytes
+     */
+    long sizeOf(Object element);
+}
@@ -0,0 +1,16 @@
+package com.amoerie.jstreams.reactive;
+
+/**
+ * Represents a provider of a potentially unbounded number of elements, which are published according to the demand of its subscribers.
+ * This interface has the same contract as the one from Reactive Streams, so it can be adapted to any library that speaks Reactive Streams
+ * or {@code java.util.concurrent.Flow} by simply delegating each method.
+ * @param <T> the type of the published elements
+ */
+public interface Publisher<T> {
+    /**
+     * Requests this publisher to start publishing elements to the subscriber.
+     * Elements are only published after the subscriber has requested them through its {@link Subscription}.
+     * @param subscriber the subscriber that will receive the elements
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+}
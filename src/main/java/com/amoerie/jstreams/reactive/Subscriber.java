@@ -0,0 +1,31 @@
+package com.amoerie.jstreams.reactive;
+
+/**
+ * Represents a receiver of the elements of a {@link Publisher}.
+ * This interface has the same contract as the one from Reactive Streams.
+ * @param <T> the type of the received elements
+ */
+public interface Subscriber<T> {
+    /**
+     * Invoked once after subscribing, before any other method. No elements are received until they are requested through the subscription.
+     * @param subscription the subscription that can be used to request elements or to cancel
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Invoked for every element, never more often than the elements that were requested.
+     * @param t the next element
+     */
+    void onNext(T t);
+
+    /**
+     * Invoked when the publisher failed. No other methods are invoked after this one.
+     * @param throwable the reason of the failure
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Invoked when all elements have been published. No other methods are invoked after this one.
+     */
+    void onComplete();
+}
@@ -0,0 +1,18 @@
+package com.amoerie.jstreams.reactive;
+
+/**
+ * Represents the link between one {@link Subscriber} and a {@link Publisher}, through which the subscriber signals its demand.
+ * This interface has the same contract as the one from Reactive Streams.
+ */
+public interface Subscription {
+    /**
+     * Requests more elements. The demand adds up until it is fulfilled, there is no need to wait for the previous elements before requesting more.
+     * @param n the number of additional elements to receive, which must be positive
+     */
+    void request(long n);
+
+    /**
+     * Requests the publisher to stop publishing elements. Elements that were already on their way may still be received.
+     */
+    void cancel();
+}
@@ -0,0 +1,251 @@
+package com.amoerie.jstreams;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amoerie.jstreams.functions.Mapper;
+import com.amoerie.jstreams.functions.SizeEstimator;
+import com.amoerie.jstreams.reactive.Publisher;
+import com.amoerie.jstreams.reactive.Subscriber;
+import com.amoerie.jstreams.reactive.Subscription;
+
+public class TestsForExecutionContext {
+    private static final Mapper<Integer, Integer> identity = new Mapper<Integer, Integer>() {
+        @Override
+        public Integer map(Integer element) {
+            return element;
+        }
+    };
+
+    private static <T> T runWithTimeout(Callable<T> task) {
+        return ExecutionContext.create().withTimeout(50, TimeUnit.MILLISECONDS).run(task);
+    }
+
+    private static final SizeEstimator tenBytesEach = new SizeEstimator() {
+        @Override
+        public long sizeOf(Object element) {
+            return 10;
+        }
+    };
+
+    @Test
+    public void shouldNotLimitStreamsThatRunOutsideOfAnExecutionContext() {
+        assertThat(ExecutionContext.current(), is(nullValue()));
+        assertThat(Stream.of(3, 1, 2).sort(Collections.<Integer>reverseOrder()).toList(), is(Arrays.asList(3, 2, 1)));
+    }
+
+    @Test
+    public void shouldRunStreamsThatStayWithinTheBudget() {
+        List<Integer> sorted = ExecutionContext.create().withMemoryBudget(60).withSizeEstimator(tenBytesEach).run(new Callable<List<Integer>>() {
+            @Override
+            public List<Integer> call() {
+                return Stream.of(3, 1, 2).sort(Collections.<Integer>reverseOrder()).toList();
+            }
+        });
+        assertThat(sorted, is(Arrays.asList(3, 2, 1)));
+    }
+
+    @Test
+    public void shouldFailTheOperationThatExceedsTheBudget() {
+        try {
+            ExecutionContext.create().withMemoryBudget(25).withSizeEstimator(tenBytesEach).run(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return Stream.of(3, 1, 2).sort(Collections.<Integer>reverseOrder()).first();
+                }
+            });
+            fail("Expected the sort to exceed the memory budget");
+        } catch (MemoryBudgetExceededException e) {
+            assertThat(e.getStage(), is("sort"));
+            assertThat(e.getBudget(), is(25L));
+            assertThat(e.getUsage(), is(30L));
+        }
+    }
+
+    @Test
+    public void shouldReleaseTheMemoryOfAnAbandonedOperationWhenTheTaskReturns() {
+        ExecutionContext context = ExecutionContext.create().withMemoryBudget(35).withSizeEstimator(tenBytesEach);
+        for (int i = 0; i < 3; i++) {
+            Integer first = context.run(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return Stream.of(3, 1, 2).sort(Collections.<Integer>reverseOrder()).first();
+                }
+            });
+            assertThat(first, is(3));
+        }
+        assertThat(context.getPeakMemoryUsage().get("sort"), is(30L));
+    }
+
+    @Test
+    public void shouldReportThePeakMemoryUsageOfEveryOperation() {
+        ExecutionContext context = ExecutionContext.create().withSizeEstimator(tenBytesEach);
+        context.run(new Callable<List<Integer>>() {
+            @Override
+            public List<Integer> call() {
+                return Stream.of(1, 2, 2, 3).distinct().toList();
+            }
+        });
+        Map<String, Long> peakMemoryUsage = context.getPeakMemoryUsage();
+        assertThat(peakMemoryUsage.get("distinct"), is(30L));
+        assertThat(peakMemoryUsage.get("toList"), is(30L));
+    }
+
+    @Test
+    public void shouldRestoreThePreviousContextAfterRunning() {
+        final ExecutionContext outer = ExecutionContext.create();
+        outer.run(new Callable<Void>() {
+            @Override
+            public Void call() {
+                ExecutionContext.create().run(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        return null;
+                    }
+                });
+                assertThat(ExecutionContext.current(), is(outer));
+                return null;
+            }
+        });
+        assertThat(ExecutionContext.current(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOnlyBeCancelledWhenCancelledOrTimedOut() throws InterruptedException {
+        ExecutionContext context = ExecutionContext.create();
+        ExecutionContext timedOut = context.withTimeout(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(1);
+        assertFalse(context.isCancelled());
+        assertTrue(timedOut.isCancelled());
+        context.cancel();
+        assertTrue(context.isCancelled());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldNotStartAStreamInACancelledContext() {
+        ExecutionContext context = ExecutionContext.create();
+        context.cancel();
+        context.run(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return Stream.of(1, 2, 3).length();
+            }
+        });
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldStopAReductionWhenTheContextIsCancelled() {
+        final ExecutionContext context = ExecutionContext.create();
+        context.run(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return new InfiniteStream<Integer>(1).map(new Mapper<Integer, Integer>() {
+                    private int count;
+
+                    @Override
+                    public Integer map(Integer element) {
+                        if (++count == 5000)
+                            context.cancel();
+                        return element;
+                    }
+                }).length();
+            }
+        });
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldStopAGroupingWhenTheTimeoutHasPassed() {
+        runWithTimeout(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new InfiniteStream<Integer>(1).groupBy(identity).first();
+            }
+        });
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldStopFlatteningEmptyStreamsWhenTheTimeoutHasPassed() {
+        runWithTimeout(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new InfiniteStream<Integer>(1).flatMap(new Mapper<Integer, Stream<Integer>>() {
+                    @Override
+                    public Stream<Integer> map(Integer element) {
+                        return Stream.empty();
+                    }
+                }).first();
+            }
+        });
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldStopAParallelMapWhenTheTimeoutHasPassed() {
+        runWithTimeout(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return Stream.of(1, 2, 3).parallelMap(new Mapper<Integer, Integer>() {
+                    @Override
+                    public Integer map(Integer element) {
+                        return new InfiniteStream<Integer>(element).length();
+                    }
+                }, 2, 4).toList();
+            }
+        });
+    }
+
+    @Test
+    public void shouldStopWaitingForAPublisherWhenTheTimeoutHasPassed() {
+        final List<String> signals = new ArrayList<String>();
+        final Publisher<Integer> silentPublisher = new Publisher<Integer>() {
+            @Override
+            public void subscribe(Subscriber<? super Integer> subscriber) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                        signals.add("cancel");
+                    }
+                });
+            }
+        };
+        try {
+            runWithTimeout(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return Stream.fromPublisher(silentPublisher).first();
+                }
+            });
+            fail("Expected the publisher stream to be cancelled");
+        } catch (CancellationException e) {
+            assertThat(signals, is(Arrays.asList("cancel")));
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldStopAPrefetchWhenTheTimeoutHasPassed() {
+        runWithTimeout(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return new InfiniteStream<Integer>(1).prefetch(16).length();
+            }
+        });
+    }
+}
@@ -8,16 +8,29 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
-
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 import org.hamcrest.CoreMatchers;
 import org.junit.Test;
@@ -29,7 +42,14 @@ import com.amoerie.jstreams.TestModels.Fruit;
 import com.amoerie.jstreams.TestModels.FruitBasket;
 import com.amoerie.jstreams.functions.Consumer;
 import com.amoerie.jstreams.functions.Filter;
+import com.amoerie.jstreams.functions.IntMapper;
+import com.amoerie.jstreams.functions.LongMapper;
 import com.amoerie.jstreams.functions.Mapper;
+import com.amoerie.jstreams.functions.Reducer;
+import com.amoerie.jstreams.functions.ShortCircuitingReducer;
+import com.amoerie.jstreams.reactive.Publisher;
+import com.amoerie.jstreams.reactive.Subscriber;
+import com.amoerie.jstreams.reactive.Subscription;
 
 public class TestsForStream {
     private static final Mapper<Fruit, String> getFruitName = new Mapper<Fruit, String>() {
@@ -83,6 +103,347 @@ public class TestsForStream {
 
     }
 
+    public static class TestsForFromPublisher {
+
+        @Test
+        public void shouldContainTheElementsOfThePublisher() {
+            List<String> fruits = Arrays.asList("Pear", "Apple", "Banana", "Kiwi");
+            assertThat(Stream.fromPublisher(Stream.create(fruits).toPublisher(), 2).toList(), is(fruits));
+        }
+
+        @Test
+        public void shouldRequestElementsInBatchesOfHalfThePrefetch() {
+            final List<Long> requests = new ArrayList<Long>();
+            final Publisher<Integer> publisher = Stream.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10).toPublisher();
+            Publisher<Integer> recordingPublisher = new Publisher<Integer>() {
+                @Override
+                public void subscribe(final Subscriber<? super Integer> subscriber) {
+                    publisher.subscribe(new Subscriber<Integer>() {
+                        @Override
+                        public void onSubscribe(final Subscription subscription) {
+                            subscriber.onSubscribe(new Subscription() {
+                                @Override
+                                public void request(long n) {
+                                    requests.add(n);
+                                    subscription.request(n);
+                                }
+
+                                @Override
+                                public void cancel() {
+                                    subscription.cancel();
+                                }
+                            });
+                        }
+
+                        @Override
+                        public void onNext(Integer number) {
+                            subscriber.onNext(number);
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            subscriber.onError(throwable);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            subscriber.onComplete();
+                        }
+                    });
+                }
+            };
+            assertThat(Stream.fromPublisher(recordingPublisher, 4).length(), is(10));
+            assertThat(requests.get(0), is(4L));
+            assertThat(Stream.create(requests).skip(1).all(new Filter<Long>() {
+                @Override
+                public boolean apply(Long n) {
+                    return n == 2L;
+                }
+            }), is(true));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        public void shouldThrowTheFailureOfThePublisher() {
+            Stream.fromPublisher(new Publisher<String>() {
+                @Override
+                public void subscribe(Subscriber<? super String> subscriber) {
+                    subscriber.onSubscribe(new Subscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                        }
+                    });
+                    subscriber.onNext("Pear");
+                    subscriber.onError(new UnsupportedOperationException());
+                }
+            }).toList();
+        }
+
+        @Test
+        public void shouldCancelTheSubscriptionWhenTheIterationIsAbandoned() {
+            final List<String> signals = new ArrayList<String>();
+            final Publisher<Integer> publisher = new Publisher<Integer>() {
+                @Override
+                public void subscribe(final Subscriber<? super Integer> subscriber) {
+                    subscriber.onSubscribe(new Subscription() {
+                        private int next;
+
+                        @Override
+                        public void request(long n) {
+                            for (long i = 0; i < n; i++)
+                                subscriber.onNext(next++);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            signals.add("cancel");
+                        }
+                    });
+                }
+            };
+            Integer first = ExecutionContext.create().run(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return Stream.fromPublisher(publisher, 4).first();
+                }
+            });
+            assertThat(first, is(0));
+            assertThat(signals, is(Arrays.asList("cancel")));
+        }
+
+        @Test
+        public void shouldFailWhenThePublisherPublishesMoreThanWasRequested() {
+            final List<String> signals = new ArrayList<String>();
+            Stream<Integer> stream = Stream.fromPublisher(new Publisher<Integer>() {
+                @Override
+                public void subscribe(Subscriber<? super Integer> subscriber) {
+                    subscriber.onSubscribe(new Subscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                            signals.add("cancel");
+                        }
+                    });
+                    for (int i = 0; i < 10; i++)
+                        subscriber.onNext(i);
+                    subscriber.onComplete();
+                }
+            }, 2);
+            try {
+                stream.toList();
+                fail("Expected the stream to fail");
+            } catch (IllegalStateException e) {
+                assertThat(signals, is(Arrays.asList("cancel")));
+            }
+        }
+    }
+
+    public static class TestsForLines {
+        private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+        private static File makeFile(String content) throws IOException {
+            return makeFile(content, UTF_8);
+        }
+
+        private static File makeFile(String content, Charset charset) throws IOException {
+            File file = File.createTempFile("jstreams", ".txt");
+            file.deleteOnExit();
+            FileOutputStream outputStream = new FileOutputStream(file);
+            try {
+                outputStream.write(content.getBytes(charset));
+            } finally {
+                outputStream.close();
+            }
+            return file;
+        }
+
+        private static final Mapper<CharSequence, String> asString = new Mapper<CharSequence, String>() {
+            @Override
+            public String map(CharSequence line) {
+                return line.toString();
+            }
+        };
+
+        @Test
+        public void shouldReturnAnEmptyStreamForAnEmptyFile() throws IOException {
+            assertThat(Stream.lines(makeFile("")).map(asString).toList(), is(Collections.<String>emptyList()));
+        }
+
+        @Test
+        public void shouldSplitOnLineFeedsAndCarriageReturns() throws IOException {
+            List<String> lines = Stream.lines(makeFile("apple\r\npear\n\nbanana")).map(asString).toList();
+            assertThat(lines, is(Arrays.asList("apple", "pear", "", "banana")));
+        }
+
+        @Test
+        public void shouldDecodeLinesWithTheCharset() throws IOException {
+            CharSequence line = Stream.lines(makeFile("caf\u00e9\n")).first();
+            assertThat(line.toString(), is("caf\u00e9"));
+            assertThat(line.subSequence(0, 3).toString(), is("caf"));
+        }
+
+        @Test
+        public void shouldReadCharsOfNonAsciiLinesAsDecodedChars() throws IOException {
+            CharSequence line = Stream.lines(makeFile("na\u00efve caf\u00e9\n")).first();
+            assertThat(line.length(), is(10));
+            assertThat(line.charAt(2), is('\u00ef'));
+            assertThat(line.subSequence(6, 10).toString(), is("caf\u00e9"));
+            assertTrue(Pattern.compile("caf\u00e9$").matcher(line).find());
+        }
+
+        @Test
+        public void shouldReadLinesOfACharsetThatIsNotAsciiCompatible() throws IOException {
+            Charset utf16 = Charset.forName("UTF-16");
+            File file = makeFile("\u010apple\npe\u00e4r\n", utf16);
+            assertThat(Stream.lines(file, utf16).map(asString).toList(), is(Arrays.asList("\u010apple", "pe\u00e4r")));
+            assertThat(Stream.linesInChunks(file, utf16, 4).length(), is(1));
+        }
+
+        @Test
+        public void shouldDecodeLinesOfAStatefulCharsetThatEncodesAsciiAsItself() throws IOException {
+            // every byte of this file is ASCII, but the Japanese chars are encoded between escape sequences
+            Charset iso2022jp = Charset.forName("ISO-2022-JP");
+            File file = makeFile("\u65e5\u672c\nabc\n\u8a9e\n", iso2022jp);
+            assertThat(Stream.lines(file, iso2022jp).map(asString).toList(), is(Arrays.asList("\u65e5\u672c", "abc", "\u8a9e")));
+            assertThat(Stream.linesInChunks(file, iso2022jp, 4).length(), is(1));
+        }
+
+        @Test
+        public void shouldReadLinesAcrossMultipleRegions() throws IOException {
+            File file = makeFile("one\ntwo\nthree\nfour\nfive\n");
+            List<String> lines = new MappedLinesStream(file, UTF_8, 0, -1, 8).map(asString).toList();
+            assertThat(lines, is(Arrays.asList("one", "two", "three", "four", "five")));
+        }
+
+        @Test
+        public void chunksShouldContainEveryLineExactlyOnce() throws IOException {
+            File file = makeFile("one\ntwo\nthree\nfour\nfive\nsix\nseven");
+            List<String> lines = Stream.linesInChunks(file, UTF_8, 3)
+                    .flatMap(new Mapper<Stream<CharSequence>, Stream<String>>() {
+                        @Override
+                        public Stream<String> map(Stream<CharSequence> chunk) {
+                            return chunk.map(asString);
+                        }
+                    })
+                    .toList();
+            assertThat(lines, is(Arrays.asList("one", "two", "three", "four", "five", "six", "seven")));
+            assertThat(Stream.linesInChunks(file, UTF_8, 3).length(), is(3));
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void shouldThrowAnIllegalStateExceptionIfTheFileDoesNotExist() {
+            Stream.lines(new File("does-not-exist.txt")).toList();
+        }
+    }
+
+    public static class TestsForMergeSorted {
+        private static final Comparator<String> byLength = new Comparator<String>() {
+            @Override
+            public int compare(String left, String right) {
+                return left.length() - right.length();
+            }
+        };
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldReturnAnEmptyStreamWhenAllStreamsAreEmpty() {
+            assertThat(Stream.mergeSorted(byLength, Stream.<String>empty(), Stream.<String>empty()).toList(), is(Collections.<String>emptyList()));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldMergeTheStreamsInOrderAndKeepTiesInTheOrderOfTheStreams() {
+            Stream<String> merged = Stream.mergeSorted(byLength,
+                    Stream.of("a", "ccc", "eeeee"),
+                    Stream.<String>empty(),
+                    Stream.of("b", "dd", "fff"));
+            assertThat(merged.toList(), is(Arrays.asList("a", "b", "dd", "ccc", "fff", "eeeee")));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldMergeInfiniteStreamsLazily() {
+            Stream<String> merged = Stream.mergeSorted(byLength,
+                    new InfiniteStream<String>("bb"),
+                    Stream.of("a", "c", "ddd"));
+            assertThat(merged.take(4).toList(), is(Arrays.asList("a", "c", "bb", "bb")));
+        }
+    }
+
+    public static class TestsForRecords {
+        private static ByteBuffer makeTicks(int... prices) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(prices.length * 12);
+            for (int i = 0; i < prices.length; i++) {
+                buffer.putLong(i);
+                buffer.putInt(prices[i]);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private static final Mapper<Record, Long> getId = new Mapper<Record, Long>() {
+            @Override
+            public Long map(Record record) {
+                return record.getLong(0);
+            }
+        };
+
+        @Test
+        public void shouldReturnAnEmptyStreamForAnEmptyBuffer() {
+            assertThat(Stream.records(makeTicks(), 12).length(), is(0));
+        }
+
+        @Test
+        public void shouldReadTheFieldsOfEveryRecord() {
+            List<Long> ids = Stream.records(makeTicks(10, 30, 20, 40), 12)
+                    .filter(new Filter<Record>() {
+                        @Override
+                        public boolean apply(Record record) {
+                            return record.getInt(8) > 15;
+                        }
+                    })
+                    .map(getId)
+                    .toList();
+            assertThat(ids, is(Arrays.asList(1L, 2L, 3L)));
+        }
+
+        @Test
+        public void shouldReuseTheSameCursorForEveryRecord() {
+            Iterator<Record> iterator = Stream.records(makeTicks(10, 20), 12).iterator();
+            Record first = iterator.next();
+            assertThat(first.getIndex(), is(0L));
+            assertTrue(first == iterator.next());
+            assertThat(first.getIndex(), is(1L));
+        }
+
+        @Test
+        public void shouldReadRecordsFromAFileAcrossMultipleRegions() throws IOException {
+            ByteBuffer ticks = makeTicks(1, 2, 3, 4, 5);
+            File file = File.createTempFile("jstreams", ".bin");
+            file.deleteOnExit();
+            FileOutputStream outputStream = new FileOutputStream(file);
+            try {
+                outputStream.getChannel().write(ticks);
+                outputStream.write(new byte[]{1, 2, 3}); // trailing partial record
+            } finally {
+                outputStream.close();
+            }
+            List<Long> ids = new RecordStream(file, 12, ByteOrder.BIG_ENDIAN, 30).map(getId).toList();
+            assertThat(ids, is(Arrays.asList(0L, 1L, 2L, 3L, 4L)));
+        }
+
+        @Test(expected = IndexOutOfBoundsException.class)
+        public void shouldThrowAnIndexOutOfBoundsExceptionWhenAFieldExceedsTheRecord() {
+            Stream.records(makeTicks(10), 12).first().getLong(8);
+        }
+    }
+
     public static class TestsForSingleton {
         @Test
         public void shouldCreateStreamWithOneElement() {
@@ -121,6 +482,30 @@ public class TestsForStream {
 
     /* instance method tests (alphabetically) */
 
+    public static class TestsForAll {
+        private static final Filter<Integer> isPositive = new Filter<Integer>() {
+            @Override
+            public boolean apply(Integer number) {
+                return number > 0;
+            }
+        };
+
+        @Test
+        public void shouldReturnTrueForAnEmptyStream() {
+            assertTrue(Stream.<Integer>empty().all(isPositive));
+        }
+
+        @Test
+        public void shouldReturnTrueWhenAllElementsSatisfyTheFilter() {
+            assertTrue(Stream.of(1, 2, 3).all(isPositive));
+        }
+
+        @Test
+        public void shouldStopAtTheFirstElementThatDoesNotSatisfyTheFilter() {
+            assertFalse(Stream.of(1, -2).concat(new InfiniteStream<Integer>(1)).all(isPositive));
+        }
+    }
+
     public static class TestsForAny {
         @Test
         public void shouldReturnTrueIfAPearIfPresent() {
@@ -168,6 +553,117 @@ public class TestsForStream {
         }
     }
 
+    public static class TestsForBroadcast {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldGiveEveryConsumerAnEmptyStreamForAnEmptyStream() {
+            final List<Integer> lengths = Collections.synchronizedList(new ArrayList<Integer>());
+            Consumer<Stream<String>> length = new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    lengths.add(strings.length());
+                }
+            };
+            Stream.<String>empty().broadcast(length, length);
+            assertThat(lengths, is(Arrays.asList(0, 0)));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldTraverseTheStreamOnceForAllConsumers() {
+            final int[] traversals = {0};
+            final List<String> pFruits = new ArrayList<String>();
+            final List<Integer> lengths = new ArrayList<Integer>();
+            Stream.of("apple", "pear", null, "pineapple").map(new Mapper<String, String>() {
+                @Override
+                public String map(String s) {
+                    traversals[0]++;
+                    return s;
+                }
+            }).broadcast(1, new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    pFruits.addAll(strings.filter(new Filter<String>() {
+                        @Override
+                        public boolean apply(String s) {
+                            return s != null && s.startsWith("p");
+                        }
+                    }).toList());
+                }
+            }, new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    lengths.add(strings.length());
+                }
+            });
+            assertThat(traversals[0], is(4));
+            assertThat(pFruits, is(Arrays.asList("pear", "pineapple")));
+            assertThat(lengths, is(Collections.singletonList(4)));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldNotBlockOnAConsumerThatStopsEarly() {
+            final List<String> firstFruits = new ArrayList<String>();
+            final List<Integer> lengths = new ArrayList<Integer>();
+            Stream.create(Collections.nCopies(100, "apple")).broadcast(2, new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    firstFruits.addAll(strings.take(1).toList());
+                }
+            }, new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    lengths.add(strings.length());
+                }
+            });
+            assertThat(firstFruits, is(Collections.singletonList("apple")));
+            assertThat(lengths, is(Collections.singletonList(100)));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldStopReadingAnInfiniteStreamWhenEveryConsumerHasStopped() {
+            final List<Integer> firsts = Collections.synchronizedList(new ArrayList<Integer>());
+            Consumer<Stream<Integer>> first = new Consumer<Stream<Integer>>() {
+                @Override
+                public void consume(Stream<Integer> numbers) {
+                    firsts.add(numbers.first());
+                }
+            };
+            new InfiniteStream<Integer>(1).broadcast(2, first, first);
+            assertThat(firsts, is(Arrays.asList(1, 1)));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        @SuppressWarnings("unchecked")
+        public void shouldRethrowTheExceptionOfAConsumerWithoutReadingTheRestOfTheStream() {
+            new InfiniteStream<String>("apple").broadcast(new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    throw new UnsupportedOperationException();
+                }
+            }, new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    strings.length();
+                }
+            });
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        @SuppressWarnings("unchecked")
+        public void shouldRethrowTheExceptionOfAConsumer() {
+            Stream.of("apple").broadcast(new Consumer<Stream<String>>() {
+                @Override
+                public void consume(Stream<String> strings) {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+    }
+
     public static class TestsForCast {
         @Test
         public void shouldCastEveryFruitToAnApple() {
@@ -212,6 +708,59 @@ public class TestsForStream {
 
         }
 
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldConcatenateMultipleStreamsAtOnce() {
+            Stream<String> strings = Stream.concat(Stream.of("a", "b"), Stream.<String>empty(), Stream.singleton("c"));
+            assertThat(strings.toList(), is(Arrays.asList("a", "b", "c")));
+        }
+
+        @Test
+        public void shouldConcatenateAnIterableOfStreams() {
+            List<Stream<String>> streams = new ArrayList<Stream<String>>();
+            streams.add(Stream.of("a"));
+            streams.add(Stream.of("b").concat(Stream.of("c")));
+            assertThat(Stream.concat(streams).toList(), is(Arrays.asList("a", "b", "c")));
+        }
+
+        @Test
+        public void shouldSupportConcatenatingInALoop() {
+            Stream<Integer> numbers = Stream.empty();
+            for (int i = 0; i < 100000; i++)
+                numbers = numbers.concat(Stream.singleton(i));
+            assertThat(numbers.length(), is(100000));
+            assertThat(numbers.last(), is(99999));
+        }
+
+        @Test
+        public void shouldConcatenateWithAnInfiniteStream() {
+            Stream<String> strings = new InfiniteStream<String>("a").concat(Stream.singleton("b"));
+            assertThat(strings.take(3).toList(), is(Arrays.asList("a", "a", "a")));
+        }
+
+    }
+
+    public static class TestsForCount {
+
+        @Test
+        public void shouldCountTheElementsThatSatisfyTheFilter() {
+            assertThat(Stream.of(1, 2, 3, 4, 6).count(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(3));
+        }
+
+        @Test
+        public void shouldReturnZeroForAnEmptyStream() {
+            assertThat(Stream.<Integer>empty().count(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(0));
+        }
     }
 
     public static class TestsForDefaultIfEmpty {
@@ -262,6 +811,75 @@ public class TestsForStream {
             assertThat(distinctFruits, is(expectedFruits));
         }
 
+        @Test
+        public void shouldFilterOutDuplicatesThatAreNotNextToEachOtherInASortedStream() {
+            List<String> names = Stream.of("ab", "cd", "ab", "x", "cd").sort(new Comparator<String>() {
+                @Override
+                public int compare(String left, String right) {
+                    return left.length() - right.length();
+                }
+            }).distinct().toList();
+            assertThat(names, is(Arrays.asList("x", "ab", "cd")));
+        }
+
+        @Test
+        public void shouldFilterOutDuplicatesThatWereMappedFromASet() {
+            List<Integer> remainders = Stream.create(new TreeSet<Integer>(Arrays.asList(1, 2, 3, 4))).map(new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return number % 2;
+                }
+            }).distinct().toList();
+            assertThat(remainders, is(Arrays.asList(1, 0)));
+        }
+
+        @Test
+        public void shouldKeepAllGroups() {
+            Stream<Group<Integer, String>> groups = Stream.of("pear", "fig", "kiwi").groupBy(new Mapper<String, Integer>() {
+                @Override
+                public Integer map(String s) {
+                    return s.length();
+                }
+            });
+            assertThat(groups.distinct().length(), is(2));
+        }
+
+    }
+
+    public static class TestsForDropWhile {
+
+        @Test
+        public void shouldDropElementsUntilTheFirstOneThatDoesNotSatisfyTheFilter() {
+            List<Integer> numbers = Stream.of(2, 4, 5, 6, 7).dropWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).toList();
+            assertThat(numbers, is(Arrays.asList(5, 6, 7)));
+        }
+
+        @Test
+        public void shouldDropAllElementsWhenTheyAllSatisfyTheFilter() {
+            List<Integer> numbers = Stream.of(2, 4).dropWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).toList();
+            assertThat(numbers, is(Collections.<Integer>emptyList()));
+        }
+
+        @Test
+        public void shouldDropLazily() {
+            List<Integer> numbers = Stream.of(2, 3).concat(new InfiniteStream<Integer>(4)).dropWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).take(3).toList();
+            assertThat(numbers, is(Arrays.asList(3, 4, 4)));
+        }
     }
 
     public static class TestsForGroupBy {
@@ -312,19 +930,69 @@ public class TestsForStream {
             assertThat(groups.get(1).toList().get(0), is(banana));
         }
 
-    }
-
-    public static class TestsForFilter {
-        private static final List<Fruit> fruitList = Arrays.asList(new Fruit("banana"),
-                new Fruit("apple"),
-                new Fruit("pear"),
-                new Fruit("pineapple"),
-                new Fruit("strawberry"),
-                new Fruit("grapes"),
-                new Fruit("kiwi"));
-
-        private static final Stream<Fruit> fruitBasket = Stream.create(fruitList);
-
+        @Test
+        public void shouldKeepOnlyTheFirstElementsPerGroup() {
+            Mapper<String, Character> firstLetter = new Mapper<String, Character>() {
+                @Override
+                public Character map(String s) {
+                    return s.charAt(0);
+                }
+            };
+            Comparator<String> longestFirst = new Comparator<String>() {
+                @Override
+                public int compare(String left, String right) {
+                    return right.length() - left.length();
+                }
+            };
+            List<Group<Character, String>> groups = Stream.of("apple", "avocado", "banana", "apricot", "ab", "blueberry", "acai")
+                    .groupBy(firstLetter, longestFirst, 2).toList();
+            assertThat(groups.size(), is(2));
+            assertThat(groups.get(0).getKey(), is('a'));
+            assertThat(groups.get(0).toList(), is(Arrays.asList("avocado", "apricot")));
+            assertThat(groups.get(1).getKey(), is('b'));
+            assertThat(groups.get(1).toList(), is(Arrays.asList("blueberry", "banana")));
+        }
+
+        @Test
+        public void shouldKeepTheSameElementsAsSortingAndTakingEachGroup() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < 5000; i++)
+                numbers.add(random.nextInt(1000));
+            Mapper<Integer, Integer> modulo = new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return number % 7;
+                }
+            };
+            Comparator<Integer> byTens = new Comparator<Integer>() {
+                @Override
+                public int compare(Integer left, Integer right) {
+                    return left / 10 - right / 10;
+                }
+            };
+            List<Group<Integer, Integer>> top = Stream.create(numbers).groupBy(modulo, byTens, 5).toList();
+            List<Group<Integer, Integer>> all = Stream.create(numbers).groupBy(modulo).toList();
+            assertThat(top.size(), is(all.size()));
+            for (int i = 0; i < all.size(); i++) {
+                assertThat(top.get(i).getKey(), is(all.get(i).getKey()));
+                assertThat(top.get(i).toList(), is(all.get(i).sort(byTens).take(5).toList()));
+            }
+        }
+
+    }
+
+    public static class TestsForFilter {
+        private static final List<Fruit> fruitList = Arrays.asList(new Fruit("banana"),
+                new Fruit("apple"),
+                new Fruit("pear"),
+                new Fruit("pineapple"),
+                new Fruit("strawberry"),
+                new Fruit("grapes"),
+                new Fruit("kiwi"));
+
+        private static final Stream<Fruit> fruitBasket = Stream.create(fruitList);
+
         @Test
         public void noFilterShouldReturnAllFruits() {
             List<Fruit> allFruits = fruitBasket.filter(new Filter<Fruit>() {
@@ -413,6 +1081,39 @@ public class TestsForStream {
         }
     }
 
+    public static class TestsForFindFirst {
+
+        @Test
+        public void shouldFindTheFirstElementThatSatisfiesTheFilter() {
+            assertThat(Stream.of(1, 3, 4, 5, 6).findFirst(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(4));
+        }
+
+        @Test
+        public void shouldReturnNullWhenNoElementSatisfiesTheFilter() {
+            assertThat(Stream.of(1, 3).findFirst(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is((Integer) null));
+        }
+
+        @Test
+        public void shouldNotConsumeTheStreamAfterTheElementIsFound() {
+            assertThat(Stream.of(1, 2).concat(new InfiniteStream<Integer>(3)).findFirst(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(2));
+        }
+    }
+
     public static class TestsForFirst {
 
         @Test
@@ -486,6 +1187,19 @@ public class TestsForStream {
             }).toList();
             assertThat(allFruits, is(makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("strawberries")).asList()));
         }
+
+        @Test
+        public void manyEmptyFruitBasketsShouldNotOverflowTheStack() {
+            List<FruitBasket> allBaskets = new ArrayList<FruitBasket>(Collections.nCopies(100000, makeFruitBasket()));
+            allBaskets.add(makeFruitBasket(new Fruit("apple")));
+            List<Fruit> allFruits = Stream.create(allBaskets).flatMap(new Mapper<FruitBasket, Stream<Fruit>>() {
+                @Override
+                public Stream<Fruit> map(FruitBasket fruitBasket) {
+                    return fruitBasket.asStream();
+                }
+            }).toList();
+            assertThat(allFruits, is(Collections.singletonList(new Fruit("apple"))));
+        }
     }
 
 	public static class TestsForForeach {
@@ -520,6 +1234,45 @@ public class TestsForStream {
 		}
 	}
 
+    public static class TestsForIndexOf {
+
+        @Test
+        public void shouldReturnTheIndexOfTheFirstElementThatSatisfiesTheFilter() {
+            assertThat(Stream.of(1, 3, 4, 6).indexOf(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(2));
+        }
+
+        @Test
+        public void shouldReturnMinusOneWhenNoElementSatisfiesTheFilter() {
+            assertThat(Stream.of(1, 3, 5).indexOf(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(-1));
+            assertThat(Stream.<Integer>empty().indexOf(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(-1));
+        }
+
+        @Test
+        public void shouldNotConsumeTheStreamAfterTheElementIsFound() {
+            assertThat(new InfiniteStream<Integer>(2).indexOf(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }), is(0));
+        }
+    }
+
     public static class TestsForJoin {
 
         @Test
@@ -553,6 +1306,48 @@ public class TestsForStream {
 		}
     }
 
+    public static class TestsForJoinTo {
+
+        @Test
+        public void shouldOnlyWritePrefixAndSuffixForEmptyStream() throws IOException {
+            StringWriter writer = Stream.empty().joinTo(new StringWriter(), ",", "[", "]");
+            assertThat(writer.toString(), is("[]"));
+        }
+
+        @Test
+        public void shouldInsertDelimiterBetweenElements() throws IOException {
+            StringBuilder builder = Stream.of("ab", null, "cd").joinTo(new StringBuilder("x:"), ",");
+            assertThat(builder.toString(), is("x:ab,null,cd"));
+        }
+
+        @Test
+        public void shouldJoinElementsThatAreNoCharSequences() throws IOException {
+            StringWriter writer = new InfiniteStream<Integer>(1).take(3).joinTo(new StringWriter(), ";", "(", ")");
+            assertThat(writer.toString(), is("(1;1;1)"));
+        }
+
+        @Test
+        public void shouldWriteToAWriterInLargeBlocks() throws IOException {
+            final int[] writes = {0};
+            StringWriter writer = new StringWriter() {
+                @Override
+                public StringWriter append(CharSequence csq) {
+                    writes[0]++;
+                    return super.append(csq);
+                }
+
+                @Override
+                public void write(String str) {
+                    writes[0]++;
+                    super.write(str);
+                }
+            };
+            new InfiniteStream<String>("ab").take(10000).joinTo(writer, ",");
+            assertThat(writer.toString().length(), is(29999));
+            assertTrue(writes[0] < 10);
+        }
+    }
+
     public static class TestsForLast {
 
         @Test
@@ -610,6 +1405,49 @@ public class TestsForStream {
                     .toList();
             assertThat(fruitNames, is(Arrays.asList(new String[]{"apple", "pear"})));
         }
+
+        @Test
+        public void chainedMapsAndFiltersShouldBeAppliedInOrder() {
+            Stream<String> fruitNames = makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("pineapple")).asStream()
+                    .map(getFruitName);
+            Mapper<String, Integer> length = new Mapper<String, Integer>() {
+                @Override
+                public Integer map(String s) {
+                    return s.length();
+                }
+            };
+            Filter<String> startsWithP = new Filter<String>() {
+                @Override
+                public boolean apply(String s) {
+                    return s.startsWith("p");
+                }
+            };
+            assertThat(fruitNames.filter(startsWithP).map(length).toList(), is(Arrays.asList(4, 9)));
+            assertThat(fruitNames.map(length).toList(), is(Arrays.asList(5, 4, 9)));
+        }
+    }
+
+    public static class TestsForNone {
+
+        @Test
+        public void shouldReturnTrueWhenNoElementSatisfiesTheFilter() {
+            assertTrue(Stream.of(1, 3, 5).none(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }));
+        }
+
+        @Test
+        public void shouldStopAtTheFirstElementThatSatisfiesTheFilter() {
+            assertFalse(Stream.of(1, 2).concat(new InfiniteStream<Integer>(3)).none(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }));
+        }
     }
 
     public static class TestsForOfClass {
@@ -630,6 +1468,71 @@ public class TestsForStream {
 
     }
 
+    public static class TestsForSliding {
+        private static final Mapper<List<Integer>, List<Integer>> copy = new Mapper<List<Integer>, List<Integer>>() {
+            @Override
+            public List<Integer> map(List<Integer> window) {
+                return new ArrayList<Integer>(window);
+            }
+        };
+
+        private static final Reducer<Integer, Integer> add = new Reducer<Integer, Integer>() {
+            @Override
+            public Integer reduce(Integer sum, Integer number) {
+                return sum + number;
+            }
+        };
+
+        private static final Reducer<Integer, Integer> subtract = new Reducer<Integer, Integer>() {
+            @Override
+            public Integer reduce(Integer sum, Integer number) {
+                return sum - number;
+            }
+        };
+
+        @Test
+        public void shouldReturnNoWindowsForAStreamShorterThanTheWindow() {
+            assertThat(Stream.of(1, 2).sliding(3).length(), is(0));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldSlideOneElementAtATime() {
+            List<List<Integer>> windows = Stream.of(1, 2, 3, 4).sliding(3).map(copy).toList();
+            assertThat(windows, is(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4))));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldSlideByTheStep() {
+            List<List<Integer>> windows = Stream.of(1, 2, 3, 4, 5, 6, 7).sliding(2, 3).map(copy).toList();
+            assertThat(windows, is(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(4, 5))));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldSlideOverAnInfiniteStream() {
+            List<List<Integer>> windows = new InfiniteStream<Integer>(1).sliding(2).map(copy).take(2).toList();
+            assertThat(windows, is(Arrays.asList(Arrays.asList(1, 1), Arrays.asList(1, 1))));
+        }
+
+        @Test
+        public void shouldComputeMovingSumsIncrementally() {
+            List<Integer> sums = Stream.of(1, 2, 3, 4, 5).sliding(3, add, subtract, 0).toList();
+            assertThat(sums, is(Arrays.asList(6, 9, 12)));
+        }
+
+        @Test
+        public void shouldComputeNoMovingSumsForAStreamShorterThanTheWindow() {
+            assertThat(Stream.of(1, 2).sliding(3, add, subtract, 0).toList(), is(Collections.<Integer>emptyList()));
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldThrowAnIllegalArgumentExceptionIfTheWindowSizeIsZero() {
+            Stream.of(1, 2).sliding(0);
+        }
+    }
+
     public static class TestsForSome {
         @Test
         public void shouldReturnTrueIfAPearIfPresent() {
@@ -687,6 +1590,49 @@ public class TestsForStream {
             assertThat(sortedFruits, is(expectedSortedFruits));
         }
 
+        @Test
+        public void shouldComputeTheKeyOncePerElement() {
+            final int[] mappings = {0};
+            List<String> sortedNames = Stream.of("pear", "kiwi", "apple", "banana", "fig").sortBy(new Mapper<String, String>() {
+                @Override
+                public String map(String name) {
+                    mappings[0]++;
+                    return name;
+                }
+            }).toList();
+            assertThat(sortedNames, is(Arrays.asList("apple", "banana", "fig", "kiwi", "pear")));
+            assertThat(mappings[0], is(5));
+        }
+
+        @Test
+        public void shouldSortByMultipleKeys() {
+            Mapper<String, Integer> length = new Mapper<String, Integer>() {
+                @Override
+                public Integer map(String name) {
+                    return name.length();
+                }
+            };
+            Mapper<String, String> identity = new Mapper<String, String>() {
+                @Override
+                public String map(String name) {
+                    return name;
+                }
+            };
+            List<String> names = Arrays.asList("pear", "kiwi", "apple", "fig", "lime");
+            assertThat(Stream.create(names).orderBy(length).thenBy(identity).toList(),
+                    is(Arrays.asList("fig", "kiwi", "lime", "pear", "apple")));
+            assertThat(Stream.create(names).orderBy(length).thenByDescending(identity).toList(),
+                    is(Arrays.asList("fig", "pear", "lime", "kiwi", "apple")));
+        }
+
+        @Test
+        public void shouldKeepTheOriginalOrderOfEqualElements() {
+            List<Fruit> fruits = Arrays.asList(new Fruit("pear"), new Apple(), new Fruit("apple"), new Fruit("kiwi"));
+            List<Fruit> sortedFruits = Stream.create(fruits).sortBy(getFruitName).toList();
+            assertTrue(sortedFruits.get(0) instanceof Apple);
+            assertThat(sortedFruits.get(1).getClass().getName(), is(Fruit.class.getName()));
+        }
+
     }
 
     public static class TestsForSortByDescending {
@@ -699,98 +1645,1028 @@ public class TestsForStream {
             assertThat(sortedFruits, is(expectedSortedFruits));
         }
 
-    }
-
-    public static class TestsForSort {
+        @Test
+        public void shouldSortFurtherByAnotherKey() {
+            List<Fruit> fruits = Arrays.asList(new Fruit("orange"), new Fruit("fig"), new Fruit("pear"), new Fruit("kiwi"));
+            List<Fruit> sortedFruits = Stream.create(fruits).orderByDescending(new Mapper<Fruit, Integer>() {
+                @Override
+                public Integer map(Fruit fruit) {
+                    return fruit.getName().length();
+                }
+            }).thenBy(getFruitName).toList();
+            assertThat(sortedFruits, is(Arrays.asList(new Fruit("orange"), new Fruit("kiwi"), new Fruit("pear"), new Fruit("fig"))));
+        }
 
         @Test
-        public void shouldSortByNameCorrectly() {
-            List<Fruit> fruits = Arrays.asList(new Fruit("orange"), new Fruit("banana"), new Fruit("pear"));
-            List<Fruit> expectedSortedFruits = Arrays.asList(new Fruit("banana"), new Fruit("orange"), new Fruit("pear"));
-            List<Fruit> sortedFruits = Stream.create(fruits).sort(new Comparator<Fruit>() {
+        public void shouldSortKeysThatCompareToTheMinimumValueDescendingly() {
+            // a key whose compareTo returns Integer.MIN_VALUE, which cannot be negated
+            class Key implements Comparable<Key> {
+                private final int value;
+
+                Key(int value) {
+                    this.value = value;
+                }
+
                 @Override
-                public int compare(Fruit left, Fruit right) {
-                    return left.getName().compareTo(right.getName());
+                public int compareTo(Key other) {
+                    return value < other.value ? Integer.MIN_VALUE : (value == other.value ? 0 : 1);
                 }
-            }).toList();
-            assertThat(sortedFruits, is(expectedSortedFruits));
+            }
+            Mapper<Integer, Key> toKey = new Mapper<Integer, Key>() {
+                @Override
+                public Key map(Integer number) {
+                    return new Key(number);
+                }
+            };
+            assertThat(Stream.of(2, 3, 1).sortByDescending(toKey).toList(), is(Arrays.asList(3, 2, 1)));
+            assertThat(Stream.of(2, 3, 1).orderBy(new Comparator<Integer>() {
+                @Override
+                public int compare(Integer left, Integer right) {
+                    return 0;
+                }
+            }).thenByDescending(toKey).toList(), is(Arrays.asList(3, 2, 1)));
         }
 
     }
 
-    public static class TestsForSkip {
+    public static class TestsForSortByInt {
+        private static final IntMapper<Integer> identity = new IntMapper<Integer>() {
+            @Override
+            public int map(Integer number) {
+                return number;
+            }
+        };
 
-        @Test(expected = IllegalArgumentException.class)
-        public void shouldThrowExceptionWhenSkippingANegativeAmount() {
-            Stream.singleton("abc").skip(-1);
+        @Test
+        public void shouldSortAnEmptyStream() {
+            assertThat(Stream.<Integer>empty().sortByInt(identity).toList(), is(Collections.<Integer>emptyList()));
         }
 
         @Test
-        public void shouldNotSkipAnythingWheNumberIsZero() {
-            Set<String> strings = Stream.singleton("abc").skip(0).toSet();
-            assertThat(strings, is(Collections.singleton("abc")));
+        public void shouldSortNegativeAndPositiveNumbers() {
+            List<Integer> numbers = Arrays.asList(5, -1, Integer.MAX_VALUE, 0, Integer.MIN_VALUE, 300, -70000, 5);
+            List<Integer> expected = new ArrayList<Integer>(numbers);
+            Collections.sort(expected);
+            assertThat(Stream.create(numbers).sortByInt(identity).toList(), is(expected));
         }
 
         @Test
-        public void shouldSkip3ElementsWhenTheNumberIs3() {
-            List<String> actualStrings = Stream.create(Arrays.asList("one", "two", "three", "four", "five")).skip(3).toList();
-            List<String> expectedStrings = Arrays.asList("four", "five");
-            assertThat(actualStrings, is(expectedStrings));
+        public void shouldKeepTheOriginalOrderOfEqualKeys() {
+            List<String> sorted = Stream.of("pear", "fig", "kiwi", "apple", "lime").sortByInt(new IntMapper<String>() {
+                @Override
+                public int map(String s) {
+                    return s.length();
+                }
+            }).toList();
+            assertThat(sorted, is(Arrays.asList("fig", "pear", "kiwi", "lime", "apple")));
         }
     }
 
-    public static class TestsForTake {
-        @Test
-        public void shouldReturnEmptyStreamIfTakeIs0() {
-            Set<String> strings = Stream.singleton("abc").take(0).toSet();
-            assertThat(strings, is(Collections.<String>emptySet()));
-        }
+    public static class TestsForSortByLong {
 
         @Test
-        public void shouldTakeElementsWhenTheNumberIs3() {
-            List<String> actualStrings = Stream.create(Arrays.asList("one", "two", "three", "four", "five")).take(3).toList();
-            List<String> expectedStrings = Arrays.asList("one", "two", "three");
-            assertThat(actualStrings, is(expectedStrings));
+        public void shouldSortLikeTheNaturalOrder() {
+            List<Long> numbers = new ArrayList<Long>();
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < 1000; i++)
+                numbers.add(random.nextLong() >> random.nextInt(64));
+            numbers.add(Long.MIN_VALUE);
+            numbers.add(Long.MAX_VALUE);
+            List<Long> expected = new ArrayList<Long>(numbers);
+            Collections.sort(expected);
+            assertThat(Stream.create(numbers).sortByLong(new LongMapper<Long>() {
+                @Override
+                public long map(Long number) {
+                    return number;
+                }
+            }).toList(), is(expected));
         }
     }
 
-    public static class TestsForToMap {
+    public static class TestsForSortByString {
 
         @Test
-        public void shouldCreateAnEmptyMapFromAnEmptyStream() {
-            Map<String, Fruit> map = Stream.<Fruit>empty().toMap(getFruitName);
-            assertTrue(map.isEmpty());
+        public void shouldSortByNameCorrectly() {
+            List<Fruit> fruits = Arrays.asList(new Fruit("orange"), new Fruit("banana"), new Fruit("pear"));
+            List<Fruit> expectedSortedFruits = Arrays.asList(new Fruit("banana"), new Fruit("orange"), new Fruit("pear"));
+            assertThat(Stream.create(fruits).sortByString(getFruitName).toList(), is(expectedSortedFruits));
+        }
+
+        @Test
+        public void shouldSortLikeTheNaturalOrder() {
+            List<String> strings = new ArrayList<String>();
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < 2000; i++) {
+                char[] chars = new char[random.nextInt(6)];
+                for (int c = 0; c < chars.length; c++)
+                    chars[c] = "ab\u00e9\u4e2dZ".charAt(random.nextInt(5));
+                strings.add(new String(chars));
+            }
+            List<String> expected = new ArrayList<String>(strings);
+            Collections.sort(expected);
+            assertThat(Stream.create(strings).sortByString(new Mapper<String, String>() {
+                @Override
+                public String map(String s) {
+                    return s;
+                }
+            }).toList(), is(expected));
         }
 
         @Test
-        public void shouldCreateACorrectMapByFruitName() {
-            Map<String, Fruit> map = makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("banana")).asStream().toMap(getFruitName);
-            assertThat(map.get("apple"), is(new Fruit("apple")));
-            assertThat(map.get("pear"), is(new Fruit("pear")));
-            assertThat(map.get("banana"), is(new Fruit("banana")));
-            assertThat(map.size(), is(3));
+        public void shouldSortCharactersThatContainAByteOf0xff() {
+            List<String> strings = new ArrayList<String>();
+            for (int i = 0; i < 40; i++)
+                strings.add(i % 3 == 0 ? "\u00ff" : (i % 3 == 1 ? "\uff0c" : "a"));
+            List<String> expected = new ArrayList<String>(strings);
+            Collections.sort(expected);
+            assertThat(Stream.create(strings).sortByString(new Mapper<String, String>() {
+                @Override
+                public String map(String s) {
+                    return s;
+                }
+            }).toList(), is(expected));
         }
+    }
+
+    public static class TestsForSort {
 
         @Test
-        public void shouldCreateACorrectMapByFruitNameAndNameLength() {
-            Map<String, Integer> map = makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("banana"))
-                    .asStream()
-                    .toMap(getFruitName, new Mapper<Fruit, Integer>() {
-                        @Override
-                        public Integer map(Fruit fruit) {
-                            return fruit.getName().length();
-                        }
-                    });
-            assertThat(map.get("apple"), is(5));
-            assertThat(map.get("pear"), is(4));
-            assertThat(map.get("banana"), is(6));
-            assertThat(map.size(), is(3));
+        public void shouldSortByNameCorrectly() {
+            List<Fruit> fruits = Arrays.asList(new Fruit("orange"), new Fruit("banana"), new Fruit("pear"));
+            List<Fruit> expectedSortedFruits = Arrays.asList(new Fruit("banana"), new Fruit("orange"), new Fruit("pear"));
+            List<Fruit> sortedFruits = Stream.create(fruits).sort(new Comparator<Fruit>() {
+                @Override
+                public int compare(Fruit left, Fruit right) {
+                    return left.getName().compareTo(right.getName());
+                }
+            }).toList();
+            assertThat(sortedFruits, is(expectedSortedFruits));
         }
 
-    }
-
-    public static class TestsForWithout {
-
+        @Test
+        public void shouldSortFurtherByAnotherKey() {
+            List<String> names = Arrays.asList("pear", "kiwi", "apple", "fig", "lime");
+            List<String> sortedNames = Stream.create(names).orderBy(new Comparator<String>() {
+                @Override
+                public int compare(String left, String right) {
+                    return left.length() - right.length();
+                }
+            }).thenByDescending(new Mapper<String, String>() {
+                @Override
+                public String map(String name) {
+                    return name;
+                }
+            }).toList();
+            assertThat(sortedNames, is(Arrays.asList("fig", "pear", "lime", "kiwi", "apple")));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldNotSortAStreamThatIsAlreadySortedByTheSameComparator() {
+            Comparator<Integer> reverseOrder = Collections.reverseOrder();
+            Stream<Integer> alreadySorted = Stream.mergeSorted(reverseOrder, new InfiniteStream<Integer>(1));
+            assertThat(alreadySorted.sort(reverseOrder).take(3).toList(), is(Arrays.asList(1, 1, 1)));
+        }
+
+        @Test
+        public void shouldSortASortedSetByAnotherComparator() {
+            TreeSet<Integer> numbers = new TreeSet<Integer>(Arrays.asList(3, 1, 2));
+            assertThat(Stream.create(numbers).sort(Collections.<Integer>reverseOrder()).toList(), is(Arrays.asList(3, 2, 1)));
+        }
+
+        @Test
+        public void shouldSortInParallelLikeSequentially() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < 100000; i++)
+                numbers.add(random.nextInt(1000));
+            Comparator<Integer> byLastDigit = new Comparator<Integer>() {
+                @Override
+                public int compare(Integer left, Integer right) {
+                    return left % 10 - right % 10;
+                }
+            };
+            List<Integer> expected = new ArrayList<Integer>(numbers);
+            Collections.sort(expected, byLastDigit);
+            assertThat(Stream.create(numbers).orderBy(byLastDigit).parallel(3).toList(), is(expected));
+        }
+
+        @Test
+        public void shouldSortFurtherByAnotherKeyInParallel() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            java.util.Random random = new java.util.Random(7);
+            for (int i = 0; i < 50000; i++)
+                numbers.add(random.nextInt());
+            Mapper<Integer, Integer> sign = new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return Integer.signum(number);
+                }
+            };
+            Mapper<Integer, Integer> identity = new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return number;
+                }
+            };
+            List<Integer> expected = Stream.create(numbers).orderBy(sign).thenByDescending(identity).toList();
+            assertThat(Stream.create(numbers).orderBy(sign).thenByDescending(identity).parallel().toList(), is(expected));
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldNotAcceptLessThanOneThread() {
+            Stream.of(1, 2, 3).orderBy(Collections.<Integer>reverseOrder()).parallel(0);
+        }
+
+    }
+
+    public static class TestsForParallelMap {
+        private static final Mapper<Integer, Integer> slowlySquare = new Mapper<Integer, Integer>() {
+            @Override
+            public Integer map(Integer number) {
+                try {
+                    // the first elements take the longest, so later elements finish first
+                    Thread.sleep(Math.max(0, 10 - number));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return number * number;
+            }
+        };
+
+        @Test
+        public void shouldKeepTheOriginalOrder() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            List<Integer> squares = new ArrayList<Integer>();
+            for (int i = 0; i < 200; i++) {
+                numbers.add(i);
+                squares.add(i * i);
+            }
+            assertThat(Stream.create(numbers).parallelMap(slowlySquare, 4, 16).toList(), is(squares));
+        }
+
+        @Test
+        public void shouldMapAnInfiniteStreamLazily() {
+            assertThat(new InfiniteStream<Integer>(3).parallelMap(slowlySquare, 2, 8).take(5).toList(), is(Arrays.asList(9, 9, 9, 9, 9)));
+        }
+
+        @Test
+        public void shouldMapAnEmptyStream() {
+            assertThat(Stream.<Integer>empty().parallelMap(slowlySquare, 2, 8).toList(), is(Collections.<Integer>emptyList()));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        public void shouldThrowTheExceptionOfTheMapper() {
+            Stream.of(1, 2, 3, 4).parallelMap(new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    if (number == 2)
+                        throw new UnsupportedOperationException();
+                    return number;
+                }
+            }, 2, 4).toList();
+        }
+    }
+
+    public static class TestsForPartition {
+
+        @Test
+        public void shouldSplitTheStreamWithASingleEvaluationPerElement() {
+            final List<Integer> evaluated = new ArrayList<Integer>();
+            Partition<List<Integer>> partition = Stream.of(1, 2, 3, 4, 5).partition(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    evaluated.add(number);
+                    return number % 2 == 0;
+                }
+            });
+            assertThat(partition.getAccepted(), is(Arrays.asList(2, 4)));
+            assertThat(partition.getRejected(), is(Arrays.asList(1, 3, 5)));
+            assertThat(evaluated, is(Arrays.asList(1, 2, 3, 4, 5)));
+        }
+    }
+
+    public static class TestsForPartitionLazily {
+        private static final Filter<Integer> isEven = new Filter<Integer>() {
+            @Override
+            public boolean apply(Integer number) {
+                return number % 2 == 0;
+            }
+        };
+
+        @Test
+        public void shouldSplitTheStreamInOneIteration() {
+            final List<Integer> iterated = new ArrayList<Integer>();
+            Partition<Stream<Integer>> partition = Stream.of(1, 2, 3, 4, 5).map(new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    iterated.add(number);
+                    return number;
+                }
+            }).partitionLazily(isEven);
+            assertThat(partition.getAccepted().toList(), is(Arrays.asList(2, 4)));
+            assertThat(partition.getRejected().toList(), is(Arrays.asList(1, 3, 5)));
+            assertThat(iterated, is(Arrays.asList(1, 2, 3, 4, 5)));
+        }
+
+        @Test
+        public void shouldAllowTheHalvesToBeIteratedAlternately() {
+            Partition<Stream<Integer>> partition = Stream.of(1, 3, 2, 5, 4, null).partitionLazily(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number != null && number % 2 == 0;
+                }
+            });
+            Iterator<Integer> accepted = partition.getAccepted().iterator();
+            Iterator<Integer> rejected = partition.getRejected().iterator();
+            assertThat(rejected.next(), is(1));
+            assertThat(accepted.next(), is(2));
+            assertThat(rejected.next(), is(3));
+            assertThat(rejected.next(), is(5));
+            assertThat(accepted.next(), is(4));
+            assertFalse(accepted.hasNext());
+            assertThat(rejected.next(), is((Integer) null));
+            assertFalse(rejected.hasNext());
+        }
+
+        @Test
+        public void shouldPartitionAnInfiniteStream() {
+            Partition<Stream<Integer>> partition = Stream.of(1, 3).concat(new InfiniteStream<Integer>(2)).partitionLazily(isEven);
+            assertThat(partition.getAccepted().take(3).toList(), is(Arrays.asList(2, 2, 2)));
+            assertThat(partition.getRejected().take(2).toList(), is(Arrays.asList(1, 3)));
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void shouldNotAllowAHalfToBeIteratedTwice() {
+            Partition<Stream<Integer>> partition = Stream.of(1, 2).partitionLazily(isEven);
+            partition.getAccepted().toList();
+            partition.getAccepted().toList();
+        }
+    }
+
+    public static class TestsForPrefetch {
+
+        private static int countPrefetchThreads() {
+            int count = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet())
+                if (thread.getName().startsWith("jstreams-prefetch-"))
+                    count++;
+            return count;
+        }
+
+        @Test
+        public void shouldKeepAllElementsInOrder() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            for (int i = 0; i < 100000; i++)
+                numbers.add(i % 10 == 0 ? null : i);
+            assertThat(Stream.create(numbers).prefetch(16).toList(), is(numbers));
+        }
+
+        @Test
+        public void shouldPrefetchAnEmptyStream() {
+            assertThat(Stream.<Integer>empty().prefetch(4).toList(), is(Collections.<Integer>emptyList()));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        public void shouldThrowTheExceptionOfTheStreamToTheConsumer() {
+            Stream.of(1, 2, 3).map(new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    if (number == 3)
+                        throw new UnsupportedOperationException();
+                    return number;
+                }
+            }).prefetch(4).toList();
+        }
+
+        @Test
+        public void shouldStopReadingAheadWhenTheConsumerStopsEarly() throws InterruptedException {
+            List<Integer> numbers = ExecutionContext.create().run(new Callable<List<Integer>>() {
+                @Override
+                public List<Integer> call() {
+                    return new InfiniteStream<Integer>(1).prefetch(4).take(3).toList();
+                }
+            });
+            assertThat(numbers, is(Arrays.asList(1, 1, 1)));
+            for (int attempt = 0; attempt < 100 && countPrefetchThreads() > 0; attempt++)
+                Thread.sleep(10);
+            assertThat(countPrefetchThreads(), is(0));
+        }
+
+        @Test
+        public void shouldStopReadingAheadWhenTakeStopsEarlyOutsideOfAnExecutionContext() throws InterruptedException {
+            assertThat(new InfiniteStream<Integer>(1).prefetch(4).take(3).toList(), is(Arrays.asList(1, 1, 1)));
+            for (int attempt = 0; attempt < 100 && countPrefetchThreads() > 0; attempt++)
+                Thread.sleep(10);
+            assertThat(countPrefetchThreads(), is(0));
+        }
+
+        @Test
+        public void shouldStopReadingAheadWhenAShortCircuitingOperatorStopsEarlyOutsideOfAnExecutionContext() throws InterruptedException {
+            Stream<Integer> numbers = new InfiniteStream<Integer>(1).prefetch(4).map(new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return number + 1;
+                }
+            });
+            assertThat(numbers.first(), is(2));
+            assertThat(numbers.some(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number == 2;
+                }
+            }), is(true));
+            for (int attempt = 0; attempt < 100 && countPrefetchThreads() > 0; attempt++)
+                Thread.sleep(10);
+            assertThat(countPrefetchThreads(), is(0));
+        }
+    }
+
+    public static class TestsForReduce {
+
+        @Test
+        public void shouldStopWhenAShortCircuitingReducerIsDone() {
+            int sum = new InfiniteStream<Integer>(3).reduce(new ShortCircuitingReducer<Integer, Integer>() {
+                @Override
+                public Integer reduce(Integer sum, Integer number) {
+                    return sum + number;
+                }
+
+                @Override
+                public boolean isDone(Integer sum) {
+                    return sum >= 10;
+                }
+            }, 0);
+            assertThat(sum, is(12));
+        }
+
+        @Test
+        public void shouldNotConsumeAnyElementWhenTheInitialValueIsAlreadyDone() {
+            int sum = new InfiniteStream<Integer>(3).reduce(new ShortCircuitingReducer<Integer, Integer>() {
+                @Override
+                public Integer reduce(Integer sum, Integer number) {
+                    throw new IllegalStateException("No element should be reduced");
+                }
+
+                @Override
+                public boolean isDone(Integer sum) {
+                    return true;
+                }
+            }, 42);
+            assertThat(sum, is(42));
+        }
+    }
+
+    public static class TestsForReduceAll {
+        private static final Reduction<String, Integer> count = Reduction.of(new Reducer<String, Integer>() {
+            @Override
+            public Integer reduce(Integer count, String s) {
+                return count + 1;
+            }
+        }, 0);
+
+        private static final Reduction<String, Integer> totalLength = Reduction.of(new Reducer<String, Integer>() {
+            @Override
+            public Integer reduce(Integer length, String s) {
+                return length + s.length();
+            }
+        }, 0);
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldReturnTheInitialValuesForAnEmptyStream() {
+            Reductions results = Stream.<String>empty().reduceAll(count, totalLength);
+            assertThat(results.get(count), is(0));
+            assertThat(results.get(totalLength), is(0));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void shouldComputeAllReductionsInOneTraversal() {
+            final int[] traversals = {0};
+            Stream<String> strings = Stream.of("apple", "pear", "kiwi").map(new Mapper<String, String>() {
+                @Override
+                public String map(String s) {
+                    traversals[0]++;
+                    return s;
+                }
+            });
+            Reductions results = strings.reduceAll(count, totalLength);
+            assertThat(results.get(count), is(3));
+            assertThat(results.get(totalLength), is(13));
+            assertThat(traversals[0], is(3));
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        @SuppressWarnings("unchecked")
+        public void shouldThrowAnIllegalArgumentExceptionForAnUnknownReduction() {
+            Stream.of("apple").reduceAll(count).get(totalLength);
+        }
+    }
+
+    public static class TestsForSample {
+        private static final Mapper<Integer, Double> weightIsValue = new Mapper<Integer, Double>() {
+            @Override
+            public Double map(Integer element) {
+                return (double) element;
+            }
+        };
+
+        private static Stream<Integer> range(final int length) {
+            List<Integer> numbers = new ArrayList<Integer>(length);
+            for (int i = 0; i < length; i++)
+                numbers.add(i);
+            return Stream.create(numbers);
+        }
+
+        @Test
+        public void shouldReturnAllElementsOfAStreamThatIsShorterThanTheSample() {
+            assertThat(Stream.of(3, 1, 2).sample(5).toList(), is(Arrays.asList(3, 1, 2)));
+        }
+
+        @Test
+        public void shouldNotAllocateTheWholeSampleUpFront() {
+            assertThat(Stream.of(3, 1, 2).sample(Integer.MAX_VALUE, 1L).toList(), is(Arrays.asList(3, 1, 2)));
+            assertThat(Stream.of(3, 1, 2).sample(Integer.MAX_VALUE, weightIsValue, 1L).toList(), is(Arrays.asList(3, 1, 2)));
+        }
+
+        @Test
+        public void shouldReturnNothingForASampleOfZeroElements() {
+            assertThat(range(100).sample(0, 7L).length(), is(0));
+        }
+
+        @Test
+        public void shouldReturnDistinctElementsInTheOrderOfTheStream() {
+            List<Integer> sample = range(10000).sample(50, 7L).toList();
+            assertThat(sample.size(), is(50));
+            assertThat(new TreeSet<Integer>(sample).size(), is(50));
+            assertThat(sample, is(Stream.create(sample).sort(new Comparator<Integer>() {
+                @Override
+                public int compare(Integer left, Integer right) {
+                    return left.compareTo(right);
+                }
+            }).toList()));
+        }
+
+        @Test
+        public void shouldTakeTheSameSampleForTheSameSeed() {
+            assertThat(range(10000).sample(20, 42L).toList(), is(range(10000).sample(20, 42L).toList()));
+            assertThat(range(10000).sample(20, weightIsValue, 42L).toList(), is(range(10000).sample(20, weightIsValue, 42L).toList()));
+        }
+
+        @Test
+        public void shouldGiveEveryElementTheSameChanceToBeSampled() {
+            int[] counts = new int[10];
+            for (long seed = 0; seed < 2000; seed++) {
+                for (Integer i : range(10).sample(3, seed))
+                    counts[i]++;
+            }
+            // every element is expected in 600 of the samples
+            for (int count : counts)
+                assertTrue(count > 500 && count < 700);
+        }
+
+        @Test
+        public void shouldPreferElementsWithAHigherWeight() {
+            int heavy = 0;
+            for (long seed = 0; seed < 1000; seed++) {
+                if (Stream.of(1, 9).sample(1, weightIsValue, seed).first() == 9)
+                    heavy++;
+            }
+            // the heavy element is expected in 900 of the samples
+            assertTrue(heavy > 850 && heavy < 950);
+        }
+
+        @Test
+        public void shouldNeverSampleElementsWithoutWeight() {
+            assertThat(Stream.of(0, 0, 5, 0).sample(2, weightIsValue, 3L).toList(), is(Arrays.asList(5)));
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void shouldThrowAnIllegalStateExceptionForANegativeWeight() {
+            Stream.of(1, -1).sample(1, weightIsValue).toList();
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldThrowAnIllegalArgumentExceptionForANegativeNumber() {
+            Stream.of(1).sample(-1);
+        }
+    }
+
+    public static class TestsForSessionWindows {
+
+        @Test
+        public void shouldReturnNoSessionsForAnEmptyStream() {
+            assertThat(Stream.<Long>empty().sessionWindows(TestsForWindowByTime.identity, 10, TestsForWindowByTime.sum, 0L).length(), is(0));
+        }
+
+        @Test
+        public void shouldStartANewSessionAfterTheGap() {
+            List<TimeWindow<Long>> sessions = Stream.of(1L, 5L, 14L, 30L, 35L)
+                    .sessionWindows(TestsForWindowByTime.identity, 10, TestsForWindowByTime.sum, 0L).toList();
+            assertThat(sessions.size(), is(2));
+            assertThat(sessions.get(0).getStart(), is(1L));
+            assertThat(sessions.get(0).getEnd(), is(24L));
+            assertThat(sessions.get(0).getValue(), is(20L));
+            assertThat(sessions.get(1).getStart(), is(30L));
+            assertThat(sessions.get(1).getCount(), is(2L));
+        }
+
+        @Test
+        public void shouldReturnSessionsOfAnInfiniteStreamAsSoonAsTheyEnd() {
+            Stream<Long> timestamps = Stream.of(1L, 50L).concat(new InfiniteStream<Long>(100L));
+            TimeWindow<Long> first = timestamps.sessionWindows(TestsForWindowByTime.identity, 10, TestsForWindowByTime.sum, 0L).first();
+            assertThat(first.getValue(), is(1L));
+        }
+    }
+
+    public static class TestsForSkip {
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldThrowExceptionWhenSkippingANegativeAmount() {
+            Stream.singleton("abc").skip(-1);
+        }
+
+        @Test
+        public void shouldNotSkipAnythingWheNumberIsZero() {
+            Set<String> strings = Stream.singleton("abc").skip(0).toSet();
+            assertThat(strings, is(Collections.singleton("abc")));
+        }
+
+        @Test
+        public void shouldSkip3ElementsWhenTheNumberIs3() {
+            List<String> actualStrings = Stream.create(Arrays.asList("one", "two", "three", "four", "five")).skip(3).toList();
+            List<String> expectedStrings = Arrays.asList("four", "five");
+            assertThat(actualStrings, is(expectedStrings));
+        }
+    }
+
+    public static class TestsForTake {
+        @Test
+        public void shouldReturnEmptyStreamIfTakeIs0() {
+            Set<String> strings = Stream.singleton("abc").take(0).toSet();
+            assertThat(strings, is(Collections.<String>emptySet()));
+        }
+
+        @Test
+        public void shouldTakeElementsWhenTheNumberIs3() {
+            List<String> actualStrings = Stream.create(Arrays.asList("one", "two", "three", "four", "five")).take(3).toList();
+            List<String> expectedStrings = Arrays.asList("one", "two", "three");
+            assertThat(actualStrings, is(expectedStrings));
+        }
+    }
+
+    public static class TestsForTakeWhile {
+
+        @Test
+        public void shouldTakeElementsUntilTheFirstOneThatDoesNotSatisfyTheFilter() {
+            List<Integer> numbers = Stream.of(2, 4, 5, 6).takeWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).toList();
+            assertThat(numbers, is(Arrays.asList(2, 4)));
+        }
+
+        @Test
+        public void shouldTakeFromAnInfiniteStream() {
+            List<Integer> numbers = Stream.of(2, 4, 5).concat(new InfiniteStream<Integer>(6)).takeWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).toList();
+            assertThat(numbers, is(Arrays.asList(2, 4)));
+        }
+
+        @Test
+        public void shouldReturnAnEmptyStreamWhenTheFirstElementDoesNotSatisfyTheFilter() {
+            assertThat(Stream.of(1, 2).takeWhile(new Filter<Integer>() {
+                @Override
+                public boolean apply(Integer number) {
+                    return number % 2 == 0;
+                }
+            }).toList(), is(Collections.<Integer>emptyList()));
+        }
+    }
+
+    public static class TestsForToCompactList {
+
+        @Test
+        public void shouldCreateAnEmptyListFromAnEmptyStream() {
+            assertThat(Stream.<String>empty().toCompactList(Codecs.strings()), is(Collections.<String>emptyList()));
+        }
+
+        @Test
+        public void shouldDecodeTheElementsInOrder() {
+            List<String> strings = Stream.of("apple", null, "", "p\u00eache").toCompactList(Codecs.strings());
+            assertThat(strings, is(Arrays.asList("apple", null, "", "p\u00eache")));
+            assertThat(strings.get(3), is("p\u00eache"));
+            assertThat(strings.size(), is(4));
+        }
+
+        @Test
+        public void shouldSpreadElementsOverMultipleSegments() {
+            CompactList<Long> longs = new CompactList<Long>(Codecs.longs(), 30);
+            for (long i = 0; i < 5000; i++)
+                longs.append(i);
+            assertThat(longs.get(4321), is(4321L));
+            assertThat(Stream.create(longs).skip(4998).toList(), is(Arrays.asList(4998L, 4999L)));
+        }
+
+        @Test
+        public void shouldGrowFromASmallSegmentToTheFullSegmentSize() {
+            CompactList<Long> longs = new CompactList<Long>(Codecs.longs(), CompactList.DEFAULT_SEGMENT_SIZE);
+            for (long i = 0; i < 200000; i++)
+                longs.append(i);
+            assertThat(longs.get(0), is(0L));
+            assertThat(longs.get(123456), is(123456L));
+            assertThat(Stream.create(longs).skip(199998).toList(), is(Arrays.asList(199998L, 199999L)));
+        }
+
+        @Test
+        public void shouldTakeOnlyTheRequestedElementsFromAnInfiniteStream() {
+            List<Integer> integers = new InfiniteStream<Integer>(7).take(3).toCompactList(Codecs.integers());
+            assertThat(integers, is(Arrays.asList(7, 7, 7)));
+        }
+
+        @Test(expected = UnsupportedOperationException.class)
+        public void shouldBeReadOnly() {
+            Stream.of(1.5).toCompactList(Codecs.doubles()).add(2.5);
+        }
+    }
+
+    public static class TestsForToIndex {
+        private static final Mapper<String, Character> firstLetter = new Mapper<String, Character>() {
+            @Override
+            public Character map(String s) {
+                return s.isEmpty() ? null : s.charAt(0);
+            }
+        };
+
+        @Test
+        public void shouldRetainAllElementsWithTheSameKeyInOrder() {
+            Index<Character, String> index = Stream.of("apple", "banana", "avocado", "blueberry", "apricot").toIndex(firstLetter);
+            assertThat(index.get('a').toList(), is(Arrays.asList("apple", "avocado", "apricot")));
+            assertThat(index.get('b').toList(), is(Arrays.asList("banana", "blueberry")));
+        }
+
+        @Test
+        public void shouldReturnAnEmptyStreamForAnUnknownKey() {
+            Index<Character, String> index = Stream.of("apple", "banana").toIndex(firstLetter);
+            assertThat(index.get('c').toList(), is(Collections.<String>emptyList()));
+            assertThat(index.containsKey('c'), is(false));
+            assertThat(index.containsKey('a'), is(true));
+        }
+
+        @Test
+        public void shouldSupportNullKeys() {
+            Index<Character, String> index = Stream.of("", "kiwi", "").toIndex(firstLetter);
+            assertThat(index.get(null).toList(), is(Arrays.asList("", "")));
+        }
+
+        @Test
+        public void shouldIndexAnEmptyStream() {
+            assertThat(Stream.<String>empty().toIndex(firstLetter).containsKey('a'), is(false));
+        }
+
+        @Test
+        public void shouldIndexManyKeysLikeGroupBy() {
+            List<Integer> numbers = new ArrayList<Integer>();
+            java.util.Random random = new java.util.Random(42);
+            for (int i = 0; i < 10000; i++)
+                numbers.add(random.nextInt());
+            Mapper<Integer, Integer> modulo = new Mapper<Integer, Integer>() {
+                @Override
+                public Integer map(Integer number) {
+                    return number % 997;
+                }
+            };
+            Index<Integer, Integer> index = Stream.create(numbers).toIndex(modulo);
+            for (Group<Integer, Integer> group : Stream.create(numbers).groupBy(modulo))
+                assertThat(index.get(group.getKey()).toList(), is(group.toList()));
+        }
+    }
+
+    public static class TestsForToIntIndex {
+
+        @Test
+        public void shouldLookUpElementsByIntKey() {
+            IntIndex<String> index = Stream.of("pear", "fig", "kiwi", "apple", "lime").toIntIndex(new IntMapper<String>() {
+                @Override
+                public int map(String s) {
+                    return s.length() == 3 ? Integer.MIN_VALUE : s.length();
+                }
+            });
+            assertThat(index.get(4).toList(), is(Arrays.asList("pear", "kiwi", "lime")));
+            assertThat(index.get(Integer.MIN_VALUE).toList(), is(Arrays.asList("fig")));
+            assertThat(index.get(0).toList(), is(Collections.<String>emptyList()));
+        }
+    }
+
+    public static class TestsForToLongIndex {
+
+        @Test
+        public void shouldLookUpElementsByLongKey() {
+            LongIndex<Long> index = Stream.of(1L << 40, 7L, 1L << 40, -1L).toLongIndex(new LongMapper<Long>() {
+                @Override
+                public long map(Long number) {
+                    return number;
+                }
+            });
+            assertThat(index.get(1L << 40).toList(), is(Arrays.asList(1L << 40, 1L << 40)));
+            assertThat(index.get(-1L).toList(), is(Arrays.asList(-1L)));
+            assertThat(index.containsKey(0L), is(false));
+        }
+    }
+
+    public static class TestsForToMap {
+
+        @Test
+        public void shouldCreateAnEmptyMapFromAnEmptyStream() {
+            Map<String, Fruit> map = Stream.<Fruit>empty().toMap(getFruitName);
+            assertTrue(map.isEmpty());
+        }
+
+        @Test
+        public void shouldCreateACorrectMapByFruitName() {
+            Map<String, Fruit> map = makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("banana")).asStream().toMap(getFruitName);
+            assertThat(map.get("apple"), is(new Fruit("apple")));
+            assertThat(map.get("pear"), is(new Fruit("pear")));
+            assertThat(map.get("banana"), is(new Fruit("banana")));
+            assertThat(map.size(), is(3));
+        }
+
+        @Test
+        public void shouldCreateACorrectMapByFruitNameAndNameLength() {
+            Map<String, Integer> map = makeFruitBasket(new Fruit("apple"), new Fruit("pear"), new Fruit("banana"))
+                    .asStream()
+                    .toMap(getFruitName, new Mapper<Fruit, Integer>() {
+                        @Override
+                        public Integer map(Fruit fruit) {
+                            return fruit.getName().length();
+                        }
+                    });
+            assertThat(map.get("apple"), is(5));
+            assertThat(map.get("pear"), is(4));
+            assertThat(map.get("banana"), is(6));
+            assertThat(map.size(), is(3));
+        }
+
+    }
+
+    public static class TestsForToPublisher {
+
+        private static class RecordingSubscriber<E> implements Subscriber<E> {
+            private final List<E> elements = new ArrayList<E>();
+            private final long batchSize;
+            private Subscription subscription;
+            private boolean isComplete;
+            private Throwable failure;
+
+            private RecordingSubscriber(long batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+            }
+
+            @Override
+            public void onNext(E e) {
+                elements.add(e);
+                if (elements.size() % batchSize == 0)
+                    subscription.request(batchSize);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure = throwable;
+            }
+
+            @Override
+            public void onComplete() {
+                isComplete = true;
+            }
+        }
+
+        @Test
+        public void shouldPublishOnlyTheRequestedElements() {
+            RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(Long.MAX_VALUE);
+            Stream.of(1, 2, 3, 4).toPublisher().subscribe(subscriber);
+            assertThat(subscriber.elements, is(Collections.<Integer>emptyList()));
+            subscriber.subscription.request(3);
+            assertThat(subscriber.elements, is(Arrays.asList(1, 2, 3)));
+            assertFalse(subscriber.isComplete);
+            subscriber.subscription.request(1);
+            assertThat(subscriber.elements, is(Arrays.asList(1, 2, 3, 4)));
+            assertTrue(subscriber.isComplete);
+        }
+
+        @Test
+        public void shouldNotRecurseWhenElementsAreRequestedFromOnNext() {
+            RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(1);
+            new InfiniteStream<Integer>(7).take(100000).toPublisher().subscribe(subscriber);
+            subscriber.subscription.request(1);
+            assertThat(subscriber.elements.size(), is(100000));
+            assertTrue(subscriber.isComplete);
+        }
+
+        @Test
+        public void shouldPublishAFailureWhenANonPositiveNumberIsRequested() {
+            RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(1);
+            Stream.of(1, 2).toPublisher().subscribe(subscriber);
+            subscriber.subscription.request(0);
+            assertTrue(subscriber.failure instanceof IllegalArgumentException);
+        }
+
+        @Test
+        public void shouldPublishAFailureInsteadOfANullElement() {
+            RecordingSubscriber<String> subscriber = new RecordingSubscriber<String>(Long.MAX_VALUE);
+            Stream.of("Pear", null, "Apple").toPublisher().subscribe(subscriber);
+            subscriber.subscription.request(3);
+            assertThat(subscriber.elements, is(Arrays.asList("Pear")));
+            assertTrue(subscriber.failure instanceof NullPointerException);
+            assertFalse(subscriber.isComplete);
+        }
+
+        @Test
+        public void shouldCancelTheSubscriptionWhenTheSubscriberThrows() {
+            final List<String> signals = new ArrayList<String>();
+            Stream.of(1, 2, 3).toPublisher().subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    subscription.request(3);
+                }
+
+                @Override
+                public void onNext(Integer number) {
+                    signals.add("onNext " + number);
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    signals.add("onError");
+                }
+
+                @Override
+                public void onComplete() {
+                    signals.add("onComplete");
+                }
+            });
+            assertThat(signals, is(Arrays.asList("onNext 1")));
+        }
+
+        @Test
+        public void shouldNotSignalAFailedRequestFromWithinOnNext() {
+            final List<String> signals = new ArrayList<String>();
+            Stream.of(1, 2, 3).toPublisher().subscribe(new Subscriber<Integer>() {
+                private Subscription subscription;
+
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(2);
+                }
+
+                @Override
+                public void onNext(Integer number) {
+                    signals.add("onNext " + number);
+                    // an invalid request while an element is being delivered must not signal the failure from within onNext
+                    subscription.request(0);
+                    signals.add("returned " + number);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    signals.add("onError");
+                }
+
+                @Override
+                public void onComplete() {
+                    signals.add("onComplete");
+                }
+            });
+            assertThat(signals, is(Arrays.asList("onNext 1", "returned 1", "onError")));
+        }
+
+        @Test
+        public void shouldStopPublishingWhenCancelled() {
+            RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>(Long.MAX_VALUE);
+            Stream.of(1, 2, 3).toPublisher().subscribe(subscriber);
+            subscriber.subscription.request(1);
+            subscriber.subscription.cancel();
+            subscriber.subscription.request(2);
+            assertThat(subscriber.elements, is(Arrays.asList(1)));
+            assertFalse(subscriber.isComplete);
+        }
+    }
+
+    public static class TestsForWithout {
+
         @Test
         public void shouldNotHaveAnyImpactWhenTheStreamToFilterWithIsEmpty() {
             List<String> names = Stream.create(new String[]{"abc", "def", "xyz"}).without(Stream.<String>empty()).toList();
@@ -802,5 +2678,112 @@ public class TestsForStream {
             List<String> names = Stream.create(new String[]{"abc", "def", "xyz"}).without(Stream.create(Arrays.asList("def", "abc"))).toList();
             assertThat(names, is(Arrays.asList("xyz")));
         }
+
+        @Test
+        public void shouldCorrectlyFilterOutTheNamesFromASet() {
+            Set<String> forbiddenNames = new TreeSet<String>(Arrays.asList("def", "abc"));
+            List<String> names = Stream.create(new String[]{"abc", "def", "xyz"}).without(Stream.create(forbiddenNames)).toList();
+            assertThat(names, is(Arrays.asList("xyz")));
+        }
+
+        @Test
+        public void shouldLookUpTheNamesFromAHashSetDirectly() {
+            final List<Object> lookups = new ArrayList<Object>();
+            Set<String> forbiddenNames = new HashSet<String>(Arrays.asList("def", "abc")) {
+                @Override
+                public boolean contains(Object name) {
+                    lookups.add(name);
+                    return super.contains(name);
+                }
+            };
+            List<String> names = Stream.create(new String[]{"abc", "def", "xyz"}).without(Stream.create(forbiddenNames)).toList();
+            assertThat(names, is(Arrays.asList("xyz")));
+            assertThat(lookups, is(Arrays.<Object>asList("abc", "def", "xyz")));
+        }
+
+        @Test
+        public void shouldCompareTheNamesFromASetByEquals() {
+            Set<String> forbiddenNames = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+            forbiddenNames.add("ABC");
+            List<String> names = Stream.create(new String[]{"abc", "ABC", "xyz"}).without(Stream.create(forbiddenNames)).toList();
+            assertThat(names, is(Arrays.asList("abc", "xyz")));
+        }
+    }
+
+    public static class TestsForWindowByTime {
+        static final Mapper<Long, Long> identity = new Mapper<Long, Long>() {
+            @Override
+            public Long map(Long timestamp) {
+                return timestamp;
+            }
+        };
+
+        static final Reducer<Long, Long> sum = new Reducer<Long, Long>() {
+            @Override
+            public Long reduce(Long sum, Long timestamp) {
+                return sum + timestamp;
+            }
+        };
+
+        @Test
+        public void shouldReturnNoWindowsForAnEmptyStream() {
+            assertThat(Stream.<Long>empty().windowByTime(identity, 10, sum, 0L).length(), is(0));
+        }
+
+        @Test
+        public void shouldAggregateEveryWindow() {
+            List<TimeWindow<Long>> windows = Stream.of(-1L, 1L, 5L, 9L, 10L, 35L).windowByTime(identity, 10, sum, 0L).toList();
+            assertThat(windows.size(), is(4));
+            assertThat(windows.get(0).getStart(), is(-10L));
+            assertThat(windows.get(1).getStart(), is(0L));
+            assertThat(windows.get(1).getEnd(), is(10L));
+            assertThat(windows.get(1).getCount(), is(3L));
+            assertThat(windows.get(1).getValue(), is(15L));
+            assertThat(windows.get(2).getValue(), is(10L));
+            assertThat(windows.get(3).getStart(), is(30L));
+        }
+
+        @Test
+        public void shouldReturnWindowsOfAnInfiniteStreamAsSoonAsTheyClose() {
+            Stream<Long> timestamps = Stream.of(1L, 2L).concat(new InfiniteStream<Long>(100L));
+            TimeWindow<Long> first = timestamps.windowByTime(identity, 10, sum, 0L).first();
+            assertThat(first.getValue(), is(3L));
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void shouldThrowAnIllegalStateExceptionIfTheStreamIsNotOrdered() {
+            Stream.of(25L, 3L).windowByTime(identity, 10, sum, 0L).toList();
+        }
+    }
+
+    public static class TestsForWriteTo {
+        private static final Mapper<Fruit, String> toCsvLine = new Mapper<Fruit, String>() {
+            @Override
+            public String map(Fruit fruit) {
+                return fruit.getName() + "," + fruit.getName().length();
+            }
+        };
+
+        @Test
+        public void shouldWriteNothingForAnEmptyStream() throws IOException {
+            StringWriter writer = new StringWriter();
+            Stream.<Fruit>empty().writeTo(writer, toCsvLine);
+            assertThat(writer.toString(), is(""));
+        }
+
+        @Test
+        public void shouldWriteEveryElementOnItsOwnLine() throws IOException {
+            StringWriter writer = new StringWriter();
+            makeFruitBasket(new Fruit("apple"), new Fruit("pear")).asStream().writeTo(writer, toCsvLine);
+            assertThat(writer.toString(), is("apple,5\npear,4\n"));
+        }
+
+        @Test
+        public void shouldEncodeLinesWrittenToAnOutputStream() throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Charset utf8 = Charset.forName("UTF-8");
+            makeFruitBasket(new Fruit("p\u00eache")).asStream().writeTo(outputStream, utf8, toCsvLine);
+            assertThat(new String(outputStream.toByteArray(), utf8), is("p\u00eache,5\n"));
+        }
     }
-}
\ No newline at end of file
+}